@@ -0,0 +1,122 @@
+-- Бенчмарк фильтров списка задач (GET /task, GET /task/cursor).
+--
+-- Запускать на локальной базе после миграций Liquibase:
+--   mysql -uroot -proot test_task < benchmark/task_filters_benchmark.sql
+--
+-- Скрипт добавляет @persons пользователей и @tasks задач, затем для каждой комбинации
+-- фильтров выполняет EXPLAIN ANALYZE дважды: без индексов из v7 и v8 (IGNORE INDEX) и с ними.
+-- Фильтры с автором или исполнителем идут по индексу внешнего ключа, в конце которого InnoDB хранит id,
+-- поэтому в их плане не должно быть узла "Sort". Фильтры только по status и priority читают первичный ключ
+-- в порядке id и останавливаются на limit: каждое значение встречается в трети строк, отдельный индекс им не нужен.
+-- Строка "actual time" верхнего узла плана - время выполнения запроса в миллисекундах.
+-- Повторный запуск добавляет данные ещё раз, поэтому перед сравнением лучше пересоздать базу.
+
+set @persons = 1000;
+set @tasks = 2000000;
+
+set session cte_max_recursion_depth = 10000000;
+
+insert into person (email, password)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < @persons)
+select concat('benchmark', n, '@gmail.com'), 'password'
+from seq;
+
+set @first_person = (select min(id) from person where email like 'benchmark%');
+
+insert into task (description, status, priority, author_id, executor_id)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < @tasks)
+select concat('Benchmark task ', n),
+       elt(1 + n % 3, 'WAITING', 'PROGRESS', 'COMPLETED'),
+       elt(1 + (n div 3) % 3, 'LOW', 'MEDDLE', 'HIGH'),
+       @first_person + (n * 7919) % @persons,
+       if(n % 5 = 0, null, @first_person + (n * 104729) % @persons)
+from seq;
+
+analyze table task;
+
+set @author = @first_person + 17;
+set @executor = @first_person + 42;
+
+-- executor
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where executor_id = @executor order by id limit 20;
+explain analyze select * from task
+where executor_id = @executor order by id limit 20;
+
+-- author
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where author_id = @author order by id limit 20;
+explain analyze select * from task
+where author_id = @author order by id limit 20;
+
+-- status
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where status = 'PROGRESS' order by id limit 20;
+explain analyze select * from task
+where status = 'PROGRESS' order by id limit 20;
+
+-- priority
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where priority = 'HIGH' order by id limit 20;
+explain analyze select * from task
+where priority = 'HIGH' order by id limit 20;
+
+-- author + status
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where author_id = @author and status = 'WAITING' order by id limit 20;
+explain analyze select * from task
+where author_id = @author and status = 'WAITING' order by id limit 20;
+
+-- author + priority
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where author_id = @author and priority = 'HIGH' order by id limit 20;
+explain analyze select * from task
+where author_id = @author and priority = 'HIGH' order by id limit 20;
+
+-- executor + status
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where executor_id = @executor and status = 'WAITING' order by id limit 20;
+explain analyze select * from task
+where executor_id = @executor and status = 'WAITING' order by id limit 20;
+
+-- executor + priority
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where executor_id = @executor and priority = 'HIGH' order by id limit 20;
+explain analyze select * from task
+where executor_id = @executor and priority = 'HIGH' order by id limit 20;
+
+-- status + priority
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where status = 'WAITING' and priority = 'HIGH' order by id limit 20;
+explain analyze select * from task
+where status = 'WAITING' and priority = 'HIGH' order by id limit 20;
+
+-- author + status + priority
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where author_id = @author and status = 'WAITING' and priority = 'HIGH' order by id limit 20;
+explain analyze select * from task
+where author_id = @author and status = 'WAITING' and priority = 'HIGH' order by id limit 20;
+
+-- executor + status + priority
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where executor_id = @executor and status = 'WAITING' and priority = 'HIGH' order by id limit 20;
+explain analyze select * from task
+where executor_id = @executor and status = 'WAITING' and priority = 'HIGH' order by id limit 20;
+
+-- author + executor + status
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where author_id = @author and executor_id = @executor and status = 'WAITING' order by id limit 20;
+explain analyze select * from task
+where author_id = @author and executor_id = @executor and status = 'WAITING' order by id limit 20;
+
+-- count для страниц GET /task
+explain analyze select count(*) from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where author_id = @author and status = 'WAITING';
+explain analyze select count(*) from task
+where author_id = @author and status = 'WAITING';
+
+-- курсор GET /task/cursor?sort=priority, приоритеты в порядке LOW, MEDDLE, HIGH
+explain analyze select * from task ignore index (task_author_fk_idx, task_executor_fk_idx, task_priority_rank_idx)
+where priority_rank > 0 or (priority_rank = 0 and id > 1000000) order by priority_rank, id limit 20;
+explain analyze select * from task
+where priority_rank > 0 or (priority_rank = 0 and id > 1000000) order by priority_rank, id limit 20;
@@ -0,0 +1,69 @@
+#!/bin/sh
+# Нагрузочное сравнение обработки запросов на потоках платформы и на виртуальных потоках.
+# Приложение запускается дважды, с spring.threads.virtual.enabled=false и true, и каждый раз
+# получает CONCURRENCY одновременных клиентов на GET /task в течение DURATION.
+#
+# Нужны собранный jar (mvn package -DskipTests), локальная база из application.properties и hey
+# (https://github.com/rakyll/hey). Запуск: sh benchmark/virtual_threads_load.sh
+# Логи запусков пишутся в target/virtual_threads_false.log и target/virtual_threads_true.log.
+# Параметры задаются переменными окружения, например CONCURRENCY=2000 DURATION=60s sh benchmark/virtual_threads_load.sh
+
+CONCURRENCY=${CONCURRENCY:-1000}
+DURATION=${DURATION:-30s}
+PORT=${PORT:-8081}
+TASKS=${TASKS:-20}
+JAR=${JAR:-$(ls target/task.management.system-*.jar | head -n 1)}
+
+URL="http://localhost:$PORT"
+
+wait_for_start() {
+    for i in $(seq 1 60); do
+        if curl -s "$URL/actuator/health" | grep -q '"UP"'; then
+            return 0
+        fi
+        sleep 1
+    done
+
+    echo "Приложение не запустилось" >&2
+    return 1
+}
+
+metric() {
+    curl -s -H "Authorization: Bearer $token" "$URL/actuator/prometheus" | grep "^$1" | head -n 1
+}
+
+for virtual in false true; do
+    echo "=== spring.threads.virtual.enabled=$virtual, клиентов: $CONCURRENCY ==="
+
+    java -Djdk.tracePinnedThreads=short -jar "$JAR" \
+        --server.port="$PORT" \
+        --spring.threads.virtual.enabled="$virtual" > "target/virtual_threads_$virtual.log" 2>&1 &
+    pid=$!
+
+    if wait_for_start; then
+        email="load$(date +%s%N)@gmail.com"
+        token=$(curl -s -X POST "$URL/auth/registration" \
+                -H "Content-Type: application/json" \
+                -d "{\"email\": \"$email\", \"password\": \"password\"}" \
+            | sed 's/.*"jwt-token":"\([^"]*\)".*/\1/')
+
+        for i in $(seq 1 "$TASKS"); do
+            curl -s -o /dev/null -X POST "$URL/task" \
+                -H "Authorization: Bearer $token" \
+                -H "Content-Type: application/json" \
+                -d "{\"description\": \"Задача нагрузки $i\", \"status\": \"WAITING\", \"priority\": \"LOW\"}"
+        done
+
+        # Прогрев JIT и пула соединений
+        hey -z 5s -c 50 -H "Authorization: Bearer $token" "$URL/task" > /dev/null
+
+        hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $token" "$URL/task"
+
+        metric jvm_threads_live_threads
+        metric 'hikaricp_connections_timeout_total'
+        echo "Блокировок виртуальных потоков на несущих: $(grep -c '<== monitors' "target/virtual_threads_$virtual.log")"
+    fi
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+done
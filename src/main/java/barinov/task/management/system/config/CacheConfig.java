@@ -0,0 +1,12 @@
+package barinov.task.management.system.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Кэш оборачивает транзакцию, поэтому запись удаляется из кэша уже после коммита изменений.
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+@Configuration
+public class CacheConfig {
+
+}
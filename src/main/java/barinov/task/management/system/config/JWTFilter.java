@@ -2,6 +2,7 @@ package barinov.task.management.system.config;
 
 import barinov.task.management.system.security.JWTUtil;
 import barinov.task.management.system.services.PersonDetailsService;
+import barinov.task.management.system.util.StageMetrics;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -21,11 +22,13 @@ public class JWTFilter extends OncePerRequestFilter {
 
     private final JWTUtil jwtUtil;
     private final PersonDetailsService personDetailsService;
+    private final StageMetrics stageMetrics;
 
     @Autowired
-    public JWTFilter(JWTUtil jwtUtil, PersonDetailsService personDetailsService) {
+    public JWTFilter(JWTUtil jwtUtil, PersonDetailsService personDetailsService, StageMetrics stageMetrics) {
         this.jwtUtil = jwtUtil;
         this.personDetailsService = personDetailsService;
+        this.stageMetrics = stageMetrics;
     }
 
     @Override
@@ -40,8 +43,18 @@ public class JWTFilter extends OncePerRequestFilter {
                         "Неккорректный JWT токен");
             } else {
                 try {
-                    String email = jwtUtil.validateTokenAndRetrieveClaim(jwt);
-                    UserDetails userDetails = personDetailsService.loadUserByUsername(email);
+                    UserDetails userDetails = null;
+
+                    if(jwtUtil.isStateless())
+                        userDetails = stageMetrics.record(StageMetrics.Stage.JWT,
+                                () -> jwtUtil.validateTokenAndRetrievePersonDetails(jwt));
+
+                    if(userDetails == null) {
+                        String email = stageMetrics.record(StageMetrics.Stage.JWT,
+                                () -> jwtUtil.validateTokenAndRetrieveClaim(jwt));
+                        userDetails = stageMetrics.record(StageMetrics.Stage.PRINCIPAL,
+                                () -> personDetailsService.loadUserByUsername(email));
+                    }
 
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(userDetails,
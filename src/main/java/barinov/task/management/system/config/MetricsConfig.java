@@ -0,0 +1,17 @@
+package barinov.task.management.system.config;
+
+import barinov.task.management.system.util.StageMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+public class MetricsConfig {
+
+    // Заменяет конвертер JSON, который Spring Boot создаёт по умолчанию
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper, StageMetrics stageMetrics) {
+        return new TimedJackson2HttpMessageConverter(objectMapper, stageMetrics);
+    }
+}
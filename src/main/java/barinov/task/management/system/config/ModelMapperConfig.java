@@ -1,5 +1,7 @@
 package barinov.task.management.system.config;
 
+import barinov.task.management.system.dto.ShowTaskDTO;
+import barinov.task.management.system.models.Task;
 import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,6 +11,13 @@ public class ModelMapperConfig {
 
     @Bean
     public ModelMapper modelMapper() {
-        return new ModelMapper();
+        ModelMapper modelMapper = new ModelMapper();
+
+        // Комментарии подставляет ConverterTaskAndTaskDTOs только по запросу, иначе чтение
+        // поля загружало бы ленивую коллекцию, как и в ручном маппере
+        modelMapper.typeMap(Task.class, ShowTaskDTO.class)
+                .addMappings(mapper -> mapper.skip(ShowTaskDTO::setComments));
+
+        return modelMapper;
     }
 }
@@ -1,5 +1,9 @@
 package barinov.task.management.system.config;
 
+import barinov.task.management.system.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -32,6 +36,10 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests((auth) -> auth
+                        // Повторная async-диспетчеризация SSE-ответа уже прошла проверку при подключении
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // Метрики раскрывают маршруты и нагрузку, поэтому отдаются только с токеном
+                        .requestMatchers("/actuator/health").permitAll()
                         .requestMatchers("/swagger-ui/**", "/auth/login", "/auth/registration", "/error", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
                         .anyRequest().authenticated())
                 .formLogin(Customizer.withDefaults())
@@ -43,8 +51,12 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder getPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder getPasswordEncoder(@Value("${security.password-hashing.max-waiting}") int maxWaiting,
+                                              MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(),
+                Runtime.getRuntime().availableProcessors(),
+                maxWaiting,
+                meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,65 @@
+package barinov.task.management.system.config;
+
+import barinov.task.management.system.util.RequestTrace;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Трассирует запрос и возвращает время его этапов в заголовке Server-Timing.
+ * Запросы дольше порога пишутся в лог с полным деревом этапов.
+ * Стоит перед фильтрами Spring Security, чтобы в трассировку попала проверка JWT.
+ * Потоковые ответы не трассируются: для заголовка ответ буферизуется целиком.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private static final Set<String> STREAMING_PATHS = Set.of("/task/export", "/task/events");
+
+    @Value("${tracing.server-timing.enabled}")
+    private boolean enabled;
+
+    @Value("${tracing.slow-request-threshold}")
+    private long slowRequestThreshold;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || STREAMING_PATHS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        RequestTrace trace = RequestTrace.begin(request.getMethod() + " " + request.getRequestURI());
+
+        try {
+            filterChain.doFilter(request, responseWrapper);
+        } finally {
+            trace.finish();
+            RequestTrace.end();
+
+            if(!responseWrapper.isCommitted())
+                responseWrapper.setHeader("Server-Timing", trace.toServerTiming());
+
+            responseWrapper.copyBodyToResponse();
+
+            if(trace.getTotalMillis() >= slowRequestThreshold)
+                log.warn("Медленный запрос, {} мс:\n{}", trace.getTotalMillis(), trace.toTree());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package barinov.task.management.system.config;
+
+import barinov.task.management.system.util.RequestTrace;
+import barinov.task.management.system.util.StageMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Конвертер JSON, который записывает время сериализации ответа в таймер этапа serialization.
+ */
+public class TimedJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final StageMetrics stageMetrics;
+
+    public TimedJackson2HttpMessageConverter(ObjectMapper objectMapper, StageMetrics stageMetrics) {
+        super(objectMapper);
+        this.stageMetrics = stageMetrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        RequestTrace.Span span = RequestTrace.openSpan(StageMetrics.Stage.SERIALIZATION.getName());
+
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            RequestTrace.closeSpan(span);
+            stageMetrics.record(StageMetrics.Stage.SERIALIZATION, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package barinov.task.management.system.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "tracing.server-timing.enabled", havingValue = "true")
+public class TracingConfig {
+
+    // Без трассировки DataSource не оборачивается и SQL-запросы не проходят через прокси
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if(bean instanceof DataSource dataSource && !(bean instanceof TracingDataSource))
+                    return new TracingDataSource(dataSource);
+
+                return bean;
+            }
+        };
+    }
+}
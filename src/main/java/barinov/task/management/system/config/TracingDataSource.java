@@ -0,0 +1,91 @@
+package barinov.task.management.system.config;
+
+import barinov.task.management.system.util.RequestTrace;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Замеряет выполнение каждого SQL-запроса в трассировке текущего запроса. Через DataSource проходят
+ * и Hibernate, и JdbcTemplate, поэтому учитываются запросы обоих. Соединения и запросы оборачиваются
+ * прокси, которые только засекают время методов execute*, остальные вызовы передаются как есть.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    public TracingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return traceConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return traceConnection(super.getConnection(username, password));
+    }
+
+    private static Connection traceConnection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+
+            return switch (method.getName()) {
+                case "createStatement" -> traceStatement(Statement.class, (Statement) result, null);
+                case "prepareStatement" -> traceStatement(PreparedStatement.class, (PreparedStatement) result, (String) args[0]);
+                case "prepareCall" -> traceStatement(CallableStatement.class, (CallableStatement) result, (String) args[0]);
+                default -> result;
+            };
+        });
+    }
+
+    // Текст подготовленного запроса известен при подготовке, у обычного Statement он передаётся в execute
+    private static <T extends Statement> T traceStatement(Class<T> type, T statement, String preparedSql) {
+        return proxy(type, statement, (target, method, args) -> {
+            if(!method.getName().startsWith("execute"))
+                return invoke(target, method, args);
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            RequestTrace.Span span = RequestTrace.openStatement(sql != null ? sql : method.getName());
+
+            try {
+                return invoke(target, method, args);
+            } finally {
+                RequestTrace.closeSpan(span);
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, TargetInvocation invocation) {
+        InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+            // Hibernate хранит запросы в хэш-таблицах, поэтому прокси равен только самому себе
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> invocation.invoke(target, method, args);
+        };
+
+        return type.cast(Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TargetInvocation {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
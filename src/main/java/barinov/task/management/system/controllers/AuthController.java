@@ -1,10 +1,14 @@
 package barinov.task.management.system.controllers;
 
+import barinov.task.management.system.dto.PasswordDTO;
 import barinov.task.management.system.dto.PersonDTO;
+import barinov.task.management.system.exceptions.PasswordHashingRejectedException;
+import barinov.task.management.system.exceptions.PasswordNotChangedException;
 import barinov.task.management.system.exceptions.PersonBadCredentialsException;
 import barinov.task.management.system.exceptions.PersonNotCreatedException;
 import barinov.task.management.system.models.Person;
 import barinov.task.management.system.security.JWTUtil;
+import barinov.task.management.system.security.PersonDetails;
 import barinov.task.management.system.services.RegistrationService;
 import barinov.task.management.system.util.*;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,11 +16,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
@@ -35,6 +43,9 @@ public class AuthController {
     private final ModelMapper modelMapper;
     private final AuthenticationManager authenticationManager;
 
+    @Value("${security.password-hashing.retry-after}")
+    private int retryAfterSeconds;
+
     @Autowired
     public AuthController(PersonDTOValidator personValidator, RegistrationService registrationService, JWTUtil jwtUtil, ModelMapper modelMapper, AuthenticationManager authenticationManager) {
         this.personValidator = personValidator;
@@ -72,7 +83,7 @@ public class AuthController {
 
         registrationService.register(person);
 
-        String token = jwtUtil.generateToken(person.getEmail());
+        String token = jwtUtil.generateToken(person);
 
         return Map.of("jwt-token", token);
     }
@@ -87,13 +98,38 @@ public class AuthController {
                 new UsernamePasswordAuthenticationToken(personDTO.getEmail(),
                         personDTO.getPassword());
 
+        Authentication authentication;
+
         try {
-            authenticationManager.authenticate(authToken);
+            authentication = authenticationManager.authenticate(authToken);
         }catch (BadCredentialsException e) {
             throw new PersonBadCredentialsException();
         }
 
-        String newToken = jwtUtil.generateToken(personDTO.getEmail());
+        PersonDetails personDetails = (PersonDetails) authentication.getPrincipal();
+
+        String newToken = jwtUtil.generateToken(personDetails.getPerson());
+        return Map.of("jwt-token", newToken);
+    }
+
+    @Operation(
+            summary = "Смена пароля",
+            description = "Позволяет сменить пароль текущего пользователя. Выданные ранее токены отзываются, " +
+                    "в ответе возвращается новый токен"
+    )
+    @PostMapping("/password")
+    public Map<String, String> changePassword(@RequestBody @Valid PasswordDTO passwordDTO,
+                                              BindingResult bindingResult) {
+        if(bindingResult.hasErrors())
+            throw new PasswordNotChangedException(bindingResult.getFieldErrors().get(0).getDefaultMessage());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        PersonDetails personDetails = (PersonDetails) authentication.getPrincipal();
+
+        Person person = registrationService.changePassword(personDetails.getPerson().getId(), passwordDTO.getPassword());
+
+        String newToken = jwtUtil.generateToken(person);
         return Map.of("jwt-token", newToken);
     }
 
@@ -111,6 +147,16 @@ public class AuthController {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler
+    private ResponseEntity<PersonErrorResponse> handlerException(PasswordNotChangedException exception) {
+        PersonErrorResponse response = new PersonErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler
     private ResponseEntity<PersonErrorResponse> handlerException(PersonBadCredentialsException exception) {
         PersonErrorResponse response = new PersonErrorResponse(
@@ -120,4 +166,16 @@ public class AuthController {
 
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
+
+    @ExceptionHandler
+    private ResponseEntity<PersonErrorResponse> handlerException(PasswordHashingRejectedException exception) {
+        PersonErrorResponse response = new PersonErrorResponse(
+                "Сервис перегружен, повторите запрос позже",
+                System.currentTimeMillis()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
 }
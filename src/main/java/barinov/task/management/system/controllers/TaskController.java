@@ -1,33 +1,55 @@
 package barinov.task.management.system.controllers;
 
+import barinov.task.management.system.dto.BulkTaskUpdateDTO;
 import barinov.task.management.system.dto.CommentDTO;
+import barinov.task.management.system.dto.CommentListDTO;
+import barinov.task.management.system.dto.CommentSliceDTO;
 import barinov.task.management.system.dto.ShowTaskDTO;
+import barinov.task.management.system.dto.TaskChangesDTO;
 import barinov.task.management.system.dto.TaskDTO;
+import barinov.task.management.system.dto.TaskSliceDTO;
+import barinov.task.management.system.dto.TaskStatsDTO;
+import barinov.task.management.system.dto.TaskUpdateOutcome;
 import barinov.task.management.system.exceptions.*;
 import barinov.task.management.system.models.Comment;
 import barinov.task.management.system.models.Priority;
 import barinov.task.management.system.models.Status;
 import barinov.task.management.system.security.PersonDetails;
+import barinov.task.management.system.services.CommentWriteQueue;
+import barinov.task.management.system.services.TaskEventDispatcher;
 import barinov.task.management.system.services.TaskService;
 import barinov.task.management.system.util.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonpatch.JsonPatch;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/task")
@@ -35,19 +57,33 @@ import java.util.Map;
 @Tag(name="Task Controller", description="Контроллер для управления задачами.")
 public class TaskController {
 
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     private final TaskService taskService;
     private final TaskDTOValidator taskDTOValidator;
     private final ConverterTaskAndTaskDTOs converterTask;
     private final GeneratorExceptionWithMessageTaskDTO generatorExceptionTaskDTO;
     private final ConverterCommentAndCommentDTOs converterComment;
+    private final ObjectMapper objectMapper;
+    private final CommentWriteQueue commentWriteQueue;
+    private final TaskEventDispatcher taskEventDispatcher;
+
+    @Value("${task.comment.async.retry-after}")
+    private int retryAfterSeconds;
+
+    @Value("${task.page.max-size}")
+    private int maxPageSize;
 
     @Autowired
-    public TaskController(TaskService taskService, TaskDTOValidator taskValidator, ConverterTaskAndTaskDTOs converter, GeneratorExceptionWithMessageTaskDTO generatorExceptionTaskDTO, ConverterCommentAndCommentDTOs converterComment) {
+    public TaskController(TaskService taskService, TaskDTOValidator taskValidator, ConverterTaskAndTaskDTOs converter, GeneratorExceptionWithMessageTaskDTO generatorExceptionTaskDTO, ConverterCommentAndCommentDTOs converterComment, ObjectMapper objectMapper, CommentWriteQueue commentWriteQueue, TaskEventDispatcher taskEventDispatcher) {
         this.taskService = taskService;
         this.taskDTOValidator = taskValidator;
         this.converterTask = converter;
         this.generatorExceptionTaskDTO = generatorExceptionTaskDTO;
         this.converterComment = converterComment;
+        this.objectMapper = objectMapper;
+        this.commentWriteQueue = commentWriteQueue;
+        this.taskEventDispatcher = taskEventDispatcher;
     }
 
     @Operation(
@@ -70,27 +106,99 @@ public class TaskController {
         return Map.of("taskId", taskId);
     }
 
+    @Operation(
+            summary = "Создать несколько задач",
+            description = "Позволяет создать сразу несколько задач. Задачи проверяются все вместе до создания, " +
+                    "при ошибке не создаётся ни одна задача. Id созданных задач возвращаются в порядке задач в запросе. " +
+                    "Если задач больше, чем разрешено настройкой task.bulk.max-size, возвращается 400"
+    )
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/bulk")
+    public Map<String, List<Integer>> createTasks(@RequestBody List<TaskDTO> taskDTOs) {
+
+        taskService.checkBulkCreateSize(taskDTOs.size());
+
+        generatorExceptionTaskDTO.validAllOrGenerateException(taskDTOs, taskDTOValidator);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        PersonDetails authorDetails = (PersonDetails) authentication.getPrincipal();
+
+        List<Integer> taskIds = taskService.saveTasksAndGetIds(converterTask.convertToTasks(taskDTOs), authorDetails.getPerson());
+
+        return Map.of("taskIds", taskIds);
+    }
+
     @Operation(
             summary = "Изменить задачу",
-            description = "Позволяет изменить задачу по её id. Доступно только автору задачи."
+            description = "Позволяет изменить задачу по её id. Доступно только автору задачи. " +
+                    "Статус меняется по тем же правилам переходов, что и при изменении статуса, при недопустимом переходе возвращается 409. " +
+                    "С заголовком If-Match задача изменяется, только если её версия совпадает с ETag."
     )
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @PatchMapping("/{taskId}")
     public void editTask(@PathVariable("taskId") int id,
                          @RequestBody JsonPatch jsonPatch,
+                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                          @Parameter(hidden = true) TaskDTO taskDTO, BindingResult bindingResult,
                          Principal principal) {
 
-        taskService.editTaskById(jsonPatch, id, principal, bindingResult, taskDTOValidator);
+        taskService.editTaskById(jsonPatch, id, TaskETag.parseVersion(ifMatch), principal, bindingResult, taskDTOValidator);
     }
 
     @Operation(
             summary = "Увидеть задачу",
-            description = "Позволяет увидеть задачу по её id"
+            description = "Позволяет увидеть задачу по её id. Комментарии включаются в ответ при include=comments. " +
+                    "Версия задачи возвращается в заголовке ETag, у каждого представления задачи свой ETag, " +
+                    "с заголовком If-None-Match неизменённая задача возвращается как 304 без тела."
     )
     @GetMapping("/{taskId}")
-    public ShowTaskDTO showTask(@PathVariable("taskId") int id) {
-        return converterTask.convertToShowTaskDTO(taskService.getTask(id));
+    public ShowTaskDTO showTask(@PathVariable("taskId") int id,
+                                @RequestParam(value = "include", required = false) String include,
+                                WebRequest webRequest) {
+
+        boolean withComments = isCommentsIncluded(include);
+
+        if(webRequest.checkNotModified(TaskETag.toETag(taskService.getTaskVersion(id), withComments ? "comments" : null)))
+            return null;
+
+        if(withComments)
+            return taskService.getShowTaskWithComments(id);
+
+        return taskService.getShowTask(id);
+    }
+
+    @Operation(
+            summary = "Увидеть выбранные поля задачи",
+            description = "Позволяет получить только перечисленные в fields поля задачи по её id, например fields=id,status. " +
+                    "Доступные поля: id, description, status, priority, authorId, executorId, commentCount, comments."
+    )
+    @GetMapping(value = "/{taskId}", params = "fields")
+    public Map<String, Object> showTaskFields(@PathVariable("taskId") int id,
+                                              @RequestParam("fields") String fields,
+                                              WebRequest webRequest) {
+
+        Set<TaskField> taskFields = TaskField.parse(fields);
+
+        if(webRequest.checkNotModified(TaskETag.toETag(taskService.getTaskVersion(id), taskFields)))
+            return null;
+
+        return taskService.getTaskFields(id, taskFields);
+    }
+
+    @Operation(
+            summary = "Увидеть комментарии задачи",
+            description = "Позволяет получить комментарии задачи по её id частями. " +
+                    "Следующая часть запрашивается с after, равным nextAfter из предыдущего ответа."
+    )
+    @GetMapping("/{taskId}/comments")
+    public CommentSliceDTO showComments(@PathVariable("taskId") int id,
+                                        @RequestParam(value = "after", defaultValue = "0") int after,
+                                        @RequestParam(value = "size", defaultValue = "20") int size) {
+
+        checkPageSize(size);
+
+        return taskService.getComments(id, after, size);
     }
 
     @Operation(
@@ -106,12 +214,16 @@ public class TaskController {
 
     @Operation(
             summary = "Изменить статус",
-            description = "Позволяет изменить статус задачи по её id. Доступно автору и исполнителю задачи"
+            description = "Позволяет изменить статус задачи по её id. Доступно автору и исполнителю задачи. " +
+                    "Допустимые переходы: WAITING -> PROGRESS, PROGRESS -> WAITING, PROGRESS -> COMPLETED, " +
+                    "при недопустимом переходе возвращается 409. " +
+                    "С заголовком If-Match статус изменяется, только если версия задачи совпадает с ETag."
     )
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @PatchMapping("/status/{taskId}")
     public void changeStatus(@PathVariable("taskId") int id,
                              @RequestBody String status,
+                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                              Principal principal) {
 
         ValidConvertStringToEnum<Status> statusValid = new ValidConvertStringToEnum<>(Status.class);
@@ -119,7 +231,7 @@ public class TaskController {
         if(!statusValid.isValidate(status))
             throw new IncorrectEnumException("У задачи должен быть один из следующих статусов: " + statusValid.valuesEnumToString());
 
-        taskService.changeStatus(id, Status.valueOf(status), principal);
+        taskService.changeStatus(id, Status.valueOf(status), TaskETag.parseVersion(ifMatch), principal);
     }
 
     @Operation(
@@ -135,25 +247,105 @@ public class TaskController {
         taskService.setExecutor(id, executorId, principal);
     }
 
+    @Operation(
+            summary = "Изменить статус нескольких задач",
+            description = "Позволяет изменить статус задач по списку id или, если список не передан, всех задач пользователя, подходящих под фильтры. " +
+                    "Изменяются только задачи, автором или исполнителем которых является пользователь. " +
+                    "Статус меняется по тем же правилам переходов, что и у одной задачи. " +
+                    "Для каждой задачи возвращается результат: UPDATED, NOT_FOUND, NO_ACCESS или CONFLICT. " +
+                    "Если задач больше допустимого, возвращается 400"
+    )
+    @PatchMapping("/bulk/status")
+    public Map<Integer, TaskUpdateOutcome> changeStatuses(@RequestBody BulkTaskUpdateDTO bulkTaskUpdateDTO,
+                                                          @RequestParam(value = "executorId", required = false) Integer executorId,
+                                                          @RequestParam(value = "authorId", required = false) Integer authorId,
+                                                          @RequestParam(value = "priority", required = false) String priority,
+                                                          @RequestParam(value = "status", required = false) String status,
+                                                          Principal principal) {
+
+        ValidConvertStringToEnum<Status> statusValid = new ValidConvertStringToEnum<>(Status.class);
+
+        if(!statusValid.isValidate(bulkTaskUpdateDTO.getStatus()))
+            throw new IncorrectEnumException("У задачи должен быть один из следующих статусов: " + statusValid.valuesEnumToString());
+
+        Status newStatus = Status.valueOf(bulkTaskUpdateDTO.getStatus());
+
+        if(bulkTaskUpdateDTO.getIds() != null)
+            return taskService.changeStatuses(bulkTaskUpdateDTO.getIds(), newStatus, principal);
+
+        return taskService.changeStatusesByFilters(executorId, authorId, convertToPriority(priority), convertToStatus(status), newStatus, principal);
+    }
+
+    @Operation(
+            summary = "Назначить исполнителя нескольким задачам",
+            description = "Позволяет назначить исполнителя задачам по списку id или, если список не передан, всем задачам пользователя, подходящим под фильтры. " +
+                    "Изменяются только задачи, автором которых является пользователь. " +
+                    "Для каждой задачи возвращается результат: UPDATED, NOT_FOUND или NO_ACCESS. " +
+                    "Если задач больше допустимого, возвращается 400"
+    )
+    @PatchMapping("/bulk/executor")
+    public Map<Integer, TaskUpdateOutcome> setExecutors(@RequestBody BulkTaskUpdateDTO bulkTaskUpdateDTO,
+                                                        @RequestParam(value = "executorId", required = false) Integer executorId,
+                                                        @RequestParam(value = "authorId", required = false) Integer authorId,
+                                                        @RequestParam(value = "priority", required = false) String priority,
+                                                        @RequestParam(value = "status", required = false) String status,
+                                                        Principal principal) {
+
+        if(bulkTaskUpdateDTO.getIds() != null)
+            return taskService.setExecutors(bulkTaskUpdateDTO.getIds(), bulkTaskUpdateDTO.getExecutorId(), principal);
+
+        return taskService.setExecutorsByFilters(executorId, authorId, convertToPriority(priority), convertToStatus(status), bulkTaskUpdateDTO.getExecutorId(), principal);
+    }
+
     @Operation(
             summary = "Оставить комментарий",
-            description = "Позволяет оставить комментарий к задаче по её id"
+            description = "Позволяет оставить комментарий к задаче по её id. " +
+                    "При включённой асинхронной записи комментарий принимается в очередь и возвращается 202, " +
+                    "существование задачи проверяется до постановки в очередь. " +
+                    "При заполненной очереди возвращается 503 с заголовком Retry-After"
     )
-    @ResponseStatus(HttpStatus.NO_CONTENT)
     @PostMapping("/comment/{taskId}")
-    public void addComment(@PathVariable("taskId") int id,
-                           @RequestBody @Valid CommentDTO commentDTO) {
+    public ResponseEntity<Void> addComment(@PathVariable("taskId") int id,
+                                           @RequestBody @Valid CommentDTO commentDTO) {
 
         Comment comment = converterComment.convertToComment(commentDTO);
 
+        if(commentWriteQueue.isEnabled()) {
+            taskService.checkTaskExists(id);
+
+            if(!commentWriteQueue.offer(id, comment.getText()))
+                throw new CommentQueueFullException();
+
+            return ResponseEntity.accepted().build();
+        }
+
         taskService.addComment(id, comment);
+
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(
+            summary = "Оставить несколько комментариев",
+            description = "Позволяет оставить сразу несколько комментариев к задаче по её id"
+    )
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @PostMapping("/{taskId}/comments")
+    public void addComments(@PathVariable("taskId") int id,
+                            @RequestBody @Valid CommentListDTO commentListDTO) {
+
+        List<Comment> comments = commentListDTO.getComments().stream()
+                .map(converterComment::convertToComment)
+                .toList();
+
+        taskService.addComments(id, comments);
     }
 
     @Operation(
             summary = "Получить отфильтрованный список задач",
             description = "Позваляеет полусить отфильтрованный список задач. " +
                     "Фильтрация осуществляется по id исполнителя, id автора, приоритету и статусу задачи." +
-                    "Задачи показываются постранично. Можно установить номер и размер страниц."
+                    "Задачи показываются постранично. Можно установить номер и размер страниц. " +
+                    "Комментарии включаются в ответ при include=comments."
     )
     @GetMapping
     public List<ShowTaskDTO> getTaskByFilters(@RequestParam(value = "executorId", required = false) Integer executorId,
@@ -161,26 +353,184 @@ public class TaskController {
                                           @RequestParam(value = "priority", required = false) String priority,
                                           @RequestParam(value = "status", required = false) String status,
                                           @RequestParam(value = "page",defaultValue = "0") int page,
-                                          @RequestParam(value = "size", defaultValue = "5") int size) {
+                                          @RequestParam(value = "size", defaultValue = "5") int size,
+                                          @RequestParam(value = "include", required = false) String include) {
 
-        Priority enumPriority = null;
-        Status enumStatus = null;
+        checkPageSize(size);
+
+        return taskService.getTasksByFilters(executorId, authorId, convertToPriority(priority), convertToStatus(status), PageRequest.of(page, size), isCommentsIncluded(include));
+    }
+
+    @Operation(
+            summary = "Получить выбранные поля отфильтрованного списка задач",
+            description = "Позволяет получить только перечисленные в fields поля задач, например fields=id,status. " +
+                    "Доступные поля: id, description, status, priority, authorId, executorId, commentCount, comments. " +
+                    "Фильтрация и постраничный вывод такие же, как у списка задач."
+    )
+    @GetMapping(params = "fields")
+    public List<Map<String, Object>> getTaskFieldsByFilters(@RequestParam(value = "executorId", required = false) Integer executorId,
+                                                            @RequestParam(value = "authorId", required = false) Integer authorId,
+                                                            @RequestParam(value = "priority", required = false) String priority,
+                                                            @RequestParam(value = "status", required = false) String status,
+                                                            @RequestParam(value = "page",defaultValue = "0") int page,
+                                                            @RequestParam(value = "size", defaultValue = "5") int size,
+                                                            @RequestParam("fields") String fields) {
+
+        checkPageSize(size);
+
+        return taskService.getTaskFieldsByFilters(executorId, authorId, convertToPriority(priority), convertToStatus(status), PageRequest.of(page, size), TaskField.parse(fields));
+    }
+
+    @Operation(
+            summary = "Получить отфильтрованный список задач по курсору",
+            description = "Позволяет получить отфильтрованный список задач частями без подсчёта общего количества. " +
+                    "Фильтрация осуществляется по id исполнителя, id автора, приоритету и статусу задачи. " +
+                    "Следующая часть запрашивается по курсору nextCursor из предыдущего ответа. " +
+                    "Сортировка по id или по приоритету (LOW, MEDDLE, HIGH) и id. Комментарии включаются в ответ при include=comments."
+    )
+    @GetMapping("/cursor")
+    public TaskSliceDTO getTaskByFiltersAfter(@RequestParam(value = "executorId", required = false) Integer executorId,
+                                              @RequestParam(value = "authorId", required = false) Integer authorId,
+                                              @RequestParam(value = "priority", required = false) String priority,
+                                              @RequestParam(value = "status", required = false) String status,
+                                              @RequestParam(value = "after", required = false) String after,
+                                              @RequestParam(value = "sort", defaultValue = TaskCursor.SORT_BY_ID) String sort,
+                                              @RequestParam(value = "size", defaultValue = "5") int size,
+                                              @RequestParam(value = "include", required = false) String include) {
+
+        checkPageSize(size);
+
+        return taskService.getTasksByFiltersAfter(executorId, authorId, convertToPriority(priority), convertToStatus(status), after, sort, size, isCommentsIncluded(include));
+    }
+
+    private void checkPageSize(int size) {
+        if(size < 1 || size > maxPageSize)
+            throw new IncorrectPageSizeException("Размер страницы должен быть от 1 до " + maxPageSize);
+    }
+
+    private boolean isCommentsIncluded(String include) {
+        return "comments".equals(include);
+    }
+
+    @Operation(
+            summary = "Найти задачи по тексту",
+            description = "Позволяет найти задачи по словам из описания и комментариев. " +
+                    "Задачи упорядочены по релевантности, поиск можно совместить с фильтрами списка задач. " +
+                    "Комментарии включаются в ответ при include=comments."
+    )
+    @GetMapping("/search")
+    public List<ShowTaskDTO> searchTasks(@RequestParam("q") String query,
+                                         @RequestParam(value = "executorId", required = false) Integer executorId,
+                                         @RequestParam(value = "authorId", required = false) Integer authorId,
+                                         @RequestParam(value = "priority", required = false) String priority,
+                                         @RequestParam(value = "status", required = false) String status,
+                                         @RequestParam(value = "size", defaultValue = "20") int size,
+                                         @RequestParam(value = "include", required = false) String include) {
+
+        checkPageSize(size);
+
+        return taskService.searchTasks(query, executorId, authorId, convertToPriority(priority), convertToStatus(status), size, isCommentsIncluded(include));
+    }
+
+    @Operation(
+            summary = "Получить статистику задач",
+            description = "Позволяет получить количество задач по статусам, приоритетам, авторам и исполнителям, " +
+                    "а также по исполнителям в разрезе статусов и приоритетов (byExecutorStatusPriority). " +
+                    "Задачи без исполнителя учитываются под id 0. Значения могут кратковременно отставать от базы."
+    )
+    @GetMapping("/stats")
+    public TaskStatsDTO getTaskStatistics() {
+        return taskService.getStatistics();
+    }
+
+    @Operation(
+            summary = "Получить изменения задач",
+            description = "Позволяет получить задачи, изменённые после токена since, и id задач, которые были удалены " +
+                    "или перестали подходить под фильтры. Фильтрация осуществляется по id исполнителя, id автора, " +
+                    "приоритету и статусу задачи. В ответе возвращается новый токен для следующего запроса, " +
+                    "при hasMore=true изменения нужно запросить ещё раз с новым токеном. " +
+                    "Без since возвращается только текущий токен. Если токен устарел, возвращается 410 " +
+                    "и список задач нужно загрузить заново."
+    )
+    @GetMapping("/changes")
+    public TaskChangesDTO getChanges(@RequestParam(value = "since", required = false) Long since,
+                                     @RequestParam(value = "executorId", required = false) Integer executorId,
+                                     @RequestParam(value = "authorId", required = false) Integer authorId,
+                                     @RequestParam(value = "priority", required = false) String priority,
+                                     @RequestParam(value = "status", required = false) String status) {
+
+        return taskService.getChangesSince(since, executorId, authorId, convertToPriority(priority), convertToStatus(status));
+    }
+
+    @Operation(
+            summary = "Подписаться на изменения задач",
+            description = "Позволяет получать события об изменениях задач через Server-Sent Events. " +
+                    "События можно отфильтровать по id автора и id исполнителя задачи. " +
+                    "Если клиент не успевает получать события, ему отправляется событие resync и соединение закрывается, " +
+                    "после этого нужно заново загрузить задачи и переподключиться."
+    )
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToEvents(@RequestParam(value = "authorId", required = false) Integer authorId,
+                                        @RequestParam(value = "executorId", required = false) Integer executorId) {
+
+        return taskEventDispatcher.subscribe(authorId, executorId);
+    }
+
+    @Operation(
+            summary = "Выгрузить отфильтрованные задачи",
+            description = "Позволяет выгрузить все задачи, подходящие под фильтры, в формате NDJSON (одна задача в строке). " +
+                    "Фильтрация осуществляется по id исполнителя, id автора, приоритету и статусу задачи. " +
+                    "Комментарии в выгрузку не входят."
+    )
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    public void exportTaskByFilters(@RequestParam(value = "executorId", required = false) Integer executorId,
+                                    @RequestParam(value = "authorId", required = false) Integer authorId,
+                                    @RequestParam(value = "priority", required = false) String priority,
+                                    @RequestParam(value = "status", required = false) String status,
+                                    HttpServletResponse response) throws IOException {
+
+        Priority enumPriority = convertToPriority(priority);
+        Status enumStatus = convertToStatus(status);
+
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        OutputStream outputStream = response.getOutputStream();
+
+        taskService.exportTasksByFilters(executorId, authorId, enumPriority, enumStatus, task -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(task));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        outputStream.flush();
+    }
+
+    private Priority convertToPriority(String priority) {
+        if(priority == null)
+            return null;
 
         ValidConvertStringToEnum<Priority> priorityValid = new ValidConvertStringToEnum<>(Priority.class);
 
-        if(priority != null && !priorityValid.isValidate(priority))
+        if(!priorityValid.isValidate(priority))
             throw new IncorrectEnumException("У задачи должен быть один из следующих приоритетов :" + priorityValid.valuesEnumToString());
 
+        return Priority.valueOf(priority);
+    }
+
+    private Status convertToStatus(String status) {
+        if(status == null)
+            return null;
 
         ValidConvertStringToEnum<Status> statusValid = new ValidConvertStringToEnum<>(Status.class);
 
-        if(status != null && !statusValid.isValidate(status))
+        if(!statusValid.isValidate(status))
             throw new IncorrectEnumException("У задачи должен быть один из следующих статусов: " + statusValid.valuesEnumToString());
 
-        if(priority != null) enumPriority = Priority.valueOf(priority);
-        if(status != null) enumStatus = Status.valueOf(status);
-
-        return taskService.getTasksByFilters(executorId, authorId, enumPriority, enumStatus, PageRequest.of(page, size));
+        return Status.valueOf(status);
     }
 
     @ExceptionHandler
@@ -203,6 +553,46 @@ public class TaskController {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler
+    private ResponseEntity<TaskErrorResponse> handlerException(IncorrectFieldsException exception) {
+        TaskErrorResponse response = new TaskErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<TaskErrorResponse> handlerException(IncorrectPageSizeException exception) {
+        TaskErrorResponse response = new TaskErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<TaskErrorResponse> handlerException(BulkUpdateTooLargeException exception) {
+        TaskErrorResponse response = new TaskErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<TaskErrorResponse> handlerException(IncorrectCursorException exception) {
+        TaskErrorResponse response = new TaskErrorResponse(
+                "Некорректный курсор или сортировка",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler
     private ResponseEntity<TaskErrorResponse> handlerException(TaskNotCreatedException exception) {
         TaskErrorResponse response = new TaskErrorResponse(
@@ -233,6 +623,48 @@ public class TaskController {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler
+    private ResponseEntity<TaskErrorResponse> handlerException(TaskStatusConflictException exception) {
+        TaskErrorResponse response = new TaskErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<TaskErrorResponse> handlerException(CommentQueueFullException exception) {
+        TaskErrorResponse response = new TaskErrorResponse(
+                "Сервис перегружен, повторите запрос позже",
+                System.currentTimeMillis()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<TaskErrorResponse> handlerException(ChangesTokenExpiredException exception) {
+        TaskErrorResponse response = new TaskErrorResponse(
+                "Токен изменений устарел, загрузите список задач заново",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.GONE);
+    }
+
+    @ExceptionHandler({TaskVersionMismatchException.class, ObjectOptimisticLockingFailureException.class})
+    private ResponseEntity<TaskErrorResponse> handlerVersionMismatchException() {
+        TaskErrorResponse response = new TaskErrorResponse(
+                "Задача была изменена, получите актуальную версию задачи",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.PRECONDITION_FAILED);
+    }
+
     @ExceptionHandler
     private ResponseEntity<TaskErrorResponse> handlerException(PersonNotFoundException exception) {
         TaskErrorResponse response = new TaskErrorResponse(
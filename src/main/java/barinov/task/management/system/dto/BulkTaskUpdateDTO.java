@@ -0,0 +1,48 @@
+package barinov.task.management.system.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Dto для массового изменения задач. Без ids изменяются все задачи, подходящие под фильтры")
+public class BulkTaskUpdateDTO {
+
+    private List<Integer> ids;
+
+    private String status;
+
+    private int executorId;
+
+    public BulkTaskUpdateDTO(List<Integer> ids, String status, int executorId) {
+        this.ids = ids;
+        this.status = status;
+        this.executorId = executorId;
+    }
+
+    public BulkTaskUpdateDTO() {
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getExecutorId() {
+        return executorId;
+    }
+
+    public void setExecutorId(int executorId) {
+        this.executorId = executorId;
+    }
+}
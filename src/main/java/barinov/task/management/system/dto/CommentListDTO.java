@@ -0,0 +1,22 @@
+package barinov.task.management.system.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+@Schema(description = "Dto для создания нескольких комментариев к одной задаче")
+public class CommentListDTO {
+
+    @NotEmpty
+    private List<@Valid CommentDTO> comments;
+
+    public List<CommentDTO> getComments() {
+        return comments;
+    }
+
+    public void setComments(List<CommentDTO> comments) {
+        this.comments = comments;
+    }
+}
@@ -0,0 +1,37 @@
+package barinov.task.management.system.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Dto для показа части комментариев задачи с id комментария, после которого начинается следующая часть")
+public class CommentSliceDTO {
+
+    private List<ShowCommentDTO> comments;
+
+    private Integer nextAfter;
+
+    public CommentSliceDTO(List<ShowCommentDTO> comments, Integer nextAfter) {
+        this.comments = comments;
+        this.nextAfter = nextAfter;
+    }
+
+    public CommentSliceDTO() {
+    }
+
+    public List<ShowCommentDTO> getComments() {
+        return comments;
+    }
+
+    public void setComments(List<ShowCommentDTO> comments) {
+        this.comments = comments;
+    }
+
+    public Integer getNextAfter() {
+        return nextAfter;
+    }
+
+    public void setNextAfter(Integer nextAfter) {
+        this.nextAfter = nextAfter;
+    }
+}
@@ -0,0 +1,19 @@
+package barinov.task.management.system.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+
+@Schema(description = "Dto для смены пароля")
+public class PasswordDTO {
+
+    @NotEmpty(message = "Пароль не должен быть пустым")
+    private String password;
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
@@ -17,6 +17,8 @@ public class ShowTaskDTO {
     private int authorId;
 
     private int executorId;
+
+    private int commentCount;
     private List<ShowCommentDTO> comments;
 
     public Integer getId() {
@@ -67,6 +69,14 @@ public class ShowTaskDTO {
         this.executorId = executorId;
     }
 
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+
     public List<ShowCommentDTO> getComments() {
         return comments;
     }
@@ -0,0 +1,60 @@
+package barinov.task.management.system.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Dto для показа изменений задач после токена: изменённые задачи, id удалённых " +
+        "или переставших подходить под фильтры задач и новый токен")
+public class TaskChangesDTO {
+
+    private List<ShowTaskDTO> updated;
+
+    private List<Integer> removed;
+
+    private long token;
+
+    private boolean hasMore;
+
+    public TaskChangesDTO(List<ShowTaskDTO> updated, List<Integer> removed, long token, boolean hasMore) {
+        this.updated = updated;
+        this.removed = removed;
+        this.token = token;
+        this.hasMore = hasMore;
+    }
+
+    public TaskChangesDTO() {
+    }
+
+    public List<ShowTaskDTO> getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(List<ShowTaskDTO> updated) {
+        this.updated = updated;
+    }
+
+    public List<Integer> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<Integer> removed) {
+        this.removed = removed;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public void setToken(long token) {
+        this.token = token;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
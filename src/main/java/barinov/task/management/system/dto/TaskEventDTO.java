@@ -0,0 +1,68 @@
+package barinov.task.management.system.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Dto для показа события изменения задачи")
+public class TaskEventDTO {
+
+    private long id;
+
+    private int taskId;
+
+    private String type;
+
+    private Integer authorId;
+
+    private Integer executorId;
+
+    public TaskEventDTO(long id, int taskId, String type, Integer authorId, Integer executorId) {
+        this.id = id;
+        this.taskId = taskId;
+        this.type = type;
+        this.authorId = authorId;
+        this.executorId = executorId;
+    }
+
+    public TaskEventDTO() {
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(int taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Integer getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Integer authorId) {
+        this.authorId = authorId;
+    }
+
+    public Integer getExecutorId() {
+        return executorId;
+    }
+
+    public void setExecutorId(Integer executorId) {
+        this.executorId = executorId;
+    }
+}
@@ -0,0 +1,37 @@
+package barinov.task.management.system.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Dto для показа части списка задач с курсором на следующую часть")
+public class TaskSliceDTO {
+
+    private List<ShowTaskDTO> tasks;
+
+    private String nextCursor;
+
+    public TaskSliceDTO(List<ShowTaskDTO> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+
+    public TaskSliceDTO() {
+    }
+
+    public List<ShowTaskDTO> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<ShowTaskDTO> tasks) {
+        this.tasks = tasks;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
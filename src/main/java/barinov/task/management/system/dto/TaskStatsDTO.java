@@ -0,0 +1,72 @@
+package barinov.task.management.system.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Map;
+
+@Schema(description = "Dto для показа количества задач по статусам, приоритетам, авторам и исполнителям, " +
+        "а также по исполнителям в разрезе статусов и приоритетов")
+public class TaskStatsDTO {
+
+    private Map<String, Long> byStatus;
+
+    private Map<String, Long> byPriority;
+
+    private Map<String, Long> byAuthor;
+
+    private Map<String, Long> byExecutor;
+
+    private Map<String, Map<String, Map<String, Long>>> byExecutorStatusPriority;
+
+    public TaskStatsDTO(Map<String, Long> byStatus, Map<String, Long> byPriority, Map<String, Long> byAuthor, Map<String, Long> byExecutor,
+                        Map<String, Map<String, Map<String, Long>>> byExecutorStatusPriority) {
+        this.byStatus = byStatus;
+        this.byPriority = byPriority;
+        this.byAuthor = byAuthor;
+        this.byExecutor = byExecutor;
+        this.byExecutorStatusPriority = byExecutorStatusPriority;
+    }
+
+    public TaskStatsDTO() {
+    }
+
+    public Map<String, Long> getByStatus() {
+        return byStatus;
+    }
+
+    public void setByStatus(Map<String, Long> byStatus) {
+        this.byStatus = byStatus;
+    }
+
+    public Map<String, Long> getByPriority() {
+        return byPriority;
+    }
+
+    public void setByPriority(Map<String, Long> byPriority) {
+        this.byPriority = byPriority;
+    }
+
+    public Map<String, Long> getByAuthor() {
+        return byAuthor;
+    }
+
+    public void setByAuthor(Map<String, Long> byAuthor) {
+        this.byAuthor = byAuthor;
+    }
+
+    public Map<String, Long> getByExecutor() {
+        return byExecutor;
+    }
+
+    public void setByExecutor(Map<String, Long> byExecutor) {
+        this.byExecutor = byExecutor;
+    }
+
+    public Map<String, Map<String, Map<String, Long>>> getByExecutorStatusPriority() {
+        return byExecutorStatusPriority;
+    }
+
+    public void setByExecutorStatusPriority(Map<String, Map<String, Map<String, Long>>> byExecutorStatusPriority) {
+        this.byExecutorStatusPriority = byExecutorStatusPriority;
+    }
+}
@@ -0,0 +1,8 @@
+package barinov.task.management.system.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Результат массового изменения для одной задачи")
+public enum TaskUpdateOutcome {
+    UPDATED, NOT_FOUND, NO_ACCESS, CONFLICT
+}
@@ -0,0 +1,7 @@
+package barinov.task.management.system.exceptions;
+
+public class BulkUpdateTooLargeException extends RuntimeException{
+    public BulkUpdateTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,4 @@
+package barinov.task.management.system.exceptions;
+
+public class IncorrectCursorException extends RuntimeException{
+}
@@ -0,0 +1,7 @@
+package barinov.task.management.system.exceptions;
+
+public class IncorrectFieldsException extends RuntimeException{
+    public IncorrectFieldsException(String message) {
+        super(message);
+    }
+}
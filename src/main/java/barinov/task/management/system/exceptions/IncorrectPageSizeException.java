@@ -0,0 +1,7 @@
+package barinov.task.management.system.exceptions;
+
+public class IncorrectPageSizeException extends RuntimeException{
+    public IncorrectPageSizeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package barinov.task.management.system.exceptions;
+
+public class PasswordNotChangedException extends RuntimeException{
+    public PasswordNotChangedException(String message) {
+        super(message);
+    }
+}
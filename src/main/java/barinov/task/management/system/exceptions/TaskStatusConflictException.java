@@ -0,0 +1,7 @@
+package barinov.task.management.system.exceptions;
+
+public class TaskStatusConflictException extends RuntimeException {
+    public TaskStatusConflictException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package barinov.task.management.system.models;
 
+// Порядок значений повторяет колонка task.priority_rank (changelog v7)
 public enum Priority {
     LOW,
     MEDDLE,
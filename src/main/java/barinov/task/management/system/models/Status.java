@@ -1,7 +1,24 @@
 package barinov.task.management.system.models;
 
+/**
+ * Статусы задачи и допустимые переходы между ними:
+ * WAITING -> PROGRESS, PROGRESS -> WAITING, PROGRESS -> COMPLETED. COMPLETED - конечный статус.
+ * В каждый статус можно перейти ровно из одного, поэтому смена статуса выполняется
+ * одним условным UPDATE по предыдущему статусу.
+ */
 public enum Status {
     WAITING,
     PROGRESS,
-    COMPLETED
+    COMPLETED;
+
+    public Status getPreviousStatus() {
+        return switch (this) {
+            case WAITING, COMPLETED -> PROGRESS;
+            case PROGRESS -> WAITING;
+        };
+    }
+
+    public boolean canTransitionTo(Status status) {
+        return status.getPreviousStatus() == this;
+    }
 }
@@ -1,10 +1,13 @@
 package barinov.task.management.system.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.List;
 
 @Entity
+@DynamicUpdate
 @Table(name = "task", schema = "test_task")
 public class Task {
 
@@ -20,6 +23,10 @@ public class Task {
     @Enumerated(EnumType.STRING)
     private Priority priority;
 
+    // Порядок приоритета для сортировки, колонку вычисляет MySQL из priority
+    @Column(insertable = false, updatable = false)
+    private Integer priorityRank;
+
     @ManyToOne
     @JoinColumn(name = "author_id")
     private Person author;
@@ -28,7 +35,13 @@ public class Task {
     @JoinColumn(name = "executor_id")
     private Person executor;
 
+    @Version
+    private Integer version;
+
+    private Integer commentCount = 0;
+
     @OneToMany(mappedBy = "task")
+    @BatchSize(size = 1000)
     private List<Comment> comments;
 
     public Integer getId() {
@@ -63,6 +76,10 @@ public class Task {
         this.priority = priority;
     }
 
+    public Integer getPriorityRank() {
+        return priorityRank;
+    }
+
     public Person getAuthor() {
         return author;
     }
@@ -79,6 +96,22 @@ public class Task {
         this.executor = executor;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public Integer getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(Integer commentCount) {
+        this.commentCount = commentCount;
+    }
+
     public List<Comment> getComments() {
         return comments;
     }
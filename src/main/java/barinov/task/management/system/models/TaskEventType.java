@@ -0,0 +1,8 @@
+package barinov.task.management.system.models;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    COMMENTED,
+    DELETED
+}
@@ -1,9 +1,28 @@
 package barinov.task.management.system.repositories;
 
 import barinov.task.management.system.models.Comment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface CommentRepository extends JpaRepository<Comment, Integer> {
+public interface CommentRepository extends JpaRepository<Comment, Integer>, CommentRepositoryCustom {
+
+    List<Comment> findByTaskIdAndIdGreaterThanOrderByIdAsc(int taskId, int id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select c.task.id as taskId, c.text as text from Comment c")
+    Stream<CommentText> streamAllTexts();
+
+    interface CommentText {
+        Integer getTaskId();
+        String getText();
+    }
 }
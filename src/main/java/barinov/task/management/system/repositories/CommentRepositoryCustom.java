@@ -0,0 +1,8 @@
+package barinov.task.management.system.repositories;
+
+import java.util.List;
+
+public interface CommentRepositoryCustom {
+
+    void insertAll(int taskId, List<String> texts);
+}
@@ -0,0 +1,23 @@
+package barinov.task.management.system.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class CommentRepositoryImpl implements CommentRepositoryCustom {
+
+    private static final String INSERT_COMMENT = "insert into test_task.comment (text, task_id) values (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Все комментарии задачи уходят в базу одним JDBC пакетом
+    @Override
+    public void insertAll(int taskId, List<String> texts) {
+        jdbcTemplate.batchUpdate(INSERT_COMMENT, texts, texts.size(), (ps, text) -> {
+            ps.setString(1, text);
+            ps.setInt(2, taskId);
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package barinov.task.management.system.repositories;
+
+import barinov.task.management.system.models.TaskEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TaskEventRepository extends JpaRepository<TaskEvent, Long> {
+
+    // Автор, исполнитель, статус и приоритет берутся из строки задачи, поэтому несохранённые изменения сначала сбрасываются в базу
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into test_task.task_event (task_id, type, author_id, executor_id, status, priority) " +
+            "select t.id, :type, t.author_id, t.executor_id, t.status, t.priority from test_task.task t where t.id in :ids", nativeQuery = true)
+    int insertForTasks(@Param("ids") Collection<Integer> ids, @Param("type") String type);
+
+    // События моложе lag миллисекунд не отдаются: транзакция с меньшим id могла ещё не закоммититься.
+    // Время сравнивается по часам базы, в которых записан created_at
+    @Query(value = "select * from test_task.task_event where id > :id " +
+            "and created_at < now(3) - interval :lag * 1000 microsecond order by id limit :limit", nativeQuery = true)
+    List<TaskEvent> findSettledAfter(@Param("id") long id, @Param("lag") long lag, @Param("limit") int limit);
+
+    // События до maxId, уже отобранные по фильтрам. С фильтром по автору или исполнителю читается только индекс пользователя
+    @Query(value = "select * from test_task.task_event where id > :id and id <= :maxId " +
+            "and (:authorId is null or author_id = :authorId) and (:executorId is null or executor_id = :executorId) " +
+            "and (:priority is null or priority = :priority) and (:status is null or status = :status) " +
+            "order by id limit :limit", nativeQuery = true)
+    List<TaskEvent> findSettledAfter(@Param("id") long id, @Param("maxId") long maxId,
+                                     @Param("executorId") Integer executorId, @Param("authorId") Integer authorId,
+                                     @Param("priority") String priority, @Param("status") String status,
+                                     @Param("limit") int limit);
+
+    @Query(value = "select coalesce(max(id), 0) from test_task.task_event " +
+            "where created_at < now(3) - interval :lag * 1000 microsecond", nativeQuery = true)
+    long findMaxSettledId(@Param("lag") long lag);
+
+    @Query("select coalesce(max(e.id), 0) from TaskEvent e")
+    long findMaxId();
+
+    @Query("select coalesce(min(e.id), 0) from TaskEvent e")
+    long findMinId();
+
+    // Последнее событие не удаляется никогда: по нему видно, что более старые токены устарели
+    @Modifying
+    @Query(value = "delete from test_task.task_event " +
+            "where created_at < now(3) - interval :retention * 1000 microsecond and id < :maxId", nativeQuery = true)
+    int deleteOlderThan(@Param("retention") long retention, @Param("maxId") long maxId);
+}
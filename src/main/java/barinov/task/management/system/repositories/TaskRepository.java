@@ -4,14 +4,99 @@ import barinov.task.management.system.models.Person;
 import barinov.task.management.system.models.Priority;
 import barinov.task.management.system.models.Status;
 import barinov.task.management.system.models.Task;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Integer>, JpaSpecificationExecutor<Task> {
+public interface TaskRepository extends JpaRepository<Task, Integer>, JpaSpecificationExecutor<Task>, TaskRepositoryCustom {
 
+    @Override
+    @EntityGraph(attributePaths = {"author", "executor"})
+    Page<Task> findAll(Specification<Task> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"author", "executor"})
+    List<Task> findAll(Specification<Task> spec);
+
+    @Override
+    @EntityGraph(attributePaths = {"author", "executor"})
+    List<Task> findAll(Specification<Task> spec, Sort sort);
+
+    @Query("select t.version from Task t where t.id = :id")
+    Optional<Integer> findVersionById(@Param("id") int id);
+
+    @Query("select t.id as id, t.status as status, t.priority as priority, a.id as authorId, e.id as executorId, t.version as version " +
+            "from Task t join t.author a left join t.executor e where t.id in :ids")
+    List<TaskState> findStatesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("select t.id as id, t.status as status, t.priority as priority, a.id as authorId, e.id as executorId, t.version as version " +
+            "from Task t join t.author a left join t.executor e where t.id = :id")
+    Optional<TaskState> findStateById(@Param("id") int id);
+
+    // Статус меняется, только если задача всё ещё в предыдущем статусе, пользователь - её автор
+    // или исполнитель и, если версия передана, она совпадает
+    @Modifying
+    @Query("update Task t set t.status = :status, t.version = t.version + 1 " +
+            "where t.id = :id and t.status = :previousStatus " +
+            "and (t.author.id = :personId or t.executor.id = :personId) " +
+            "and (:version is null or t.version = :version)")
+    int updateStatus(@Param("id") int id, @Param("status") Status status, @Param("previousStatus") Status previousStatus,
+                     @Param("personId") Integer personId, @Param("version") Integer version);
+
+    @Modifying
+    @Query("update Task t set t.status = :status, t.version = t.version + 1 " +
+            "where t.id in :ids and t.status = :previousStatus " +
+            "and (t.author.id = :personId or t.executor.id = :personId)")
+    int updateStatusByIdIn(@Param("ids") Collection<Integer> ids, @Param("status") Status status,
+                           @Param("previousStatus") Status previousStatus, @Param("personId") Integer personId);
+
+    @Modifying
+    @Query("update Task t set t.executor = :executor, t.version = t.version + 1 " +
+            "where t.id in :ids and t.author.id = :personId")
+    int updateExecutorByIdIn(@Param("ids") Collection<Integer> ids, @Param("executor") Person executor, @Param("personId") Integer personId);
+
+    @Modifying
+    @Query("update Task t set t.commentCount = t.commentCount + :count, t.version = t.version + 1 where t.id = :id")
+    int incrementCommentCount(@Param("id") int id, @Param("count") int count);
+
+    @Query("select e.id, t.status, t.priority, count(t) from Task t left join t.executor e group by e.id, t.status, t.priority")
+    List<Object[]> countGroupByExecutorStatusPriority();
+
+    @Query("select a.id, t.status, t.priority, count(t) from Task t join t.author a group by a.id, t.status, t.priority")
+    List<Object[]> countGroupByAuthorStatusPriority();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select t.id as id, t.description as description from Task t")
+    Stream<TaskText> streamAllTexts();
+
+    interface TaskState {
+        Integer getId();
+        Status getStatus();
+        Priority getPriority();
+        Integer getAuthorId();
+        Integer getExecutorId();
+        Integer getVersion();
+    }
+
+    interface TaskText {
+        Integer getId();
+        String getDescription();
+    }
 }
@@ -0,0 +1,22 @@
+package barinov.task.management.system.repositories;
+
+import barinov.task.management.system.models.Task;
+import barinov.task.management.system.util.TaskField;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface TaskRepositoryCustom {
+
+    Stream<Task> streamAll(Specification<Task> spec);
+
+    List<TaskRepository.TaskState> findStates(Specification<Task> spec, int limit);
+
+    List<Map<String, Object>> findAllFields(Specification<Task> spec, Set<TaskField> fields, Pageable pageable);
+
+    List<Integer> insertAll(List<Task> tasks, int batchSize);
+}
@@ -0,0 +1,257 @@
+package barinov.task.management.system.repositories;
+
+import barinov.task.management.system.dto.ShowCommentDTO;
+import barinov.task.management.system.models.Priority;
+import barinov.task.management.system.models.Status;
+import barinov.task.management.system.models.Task;
+import barinov.task.management.system.util.TaskField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    // MySQL Connector/J отдаёт строки по одной, не загружая весь результат в память,
+    // только при fetch size, равном Integer.MIN_VALUE.
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private static final String INSERT_TASK = "insert into test_task.task " +
+            "(description, status, priority, author_id, executor_id, version, comment_count) " +
+            "values (?, ?, ?, ?, ?, 0, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Stream<Task> streamAll(Specification<Task> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Task> query = criteriaBuilder.createQuery(Task.class);
+        Root<Task> root = query.from(Task.class);
+
+        root.fetch("author");
+        root.fetch("executor", JoinType.LEFT);
+
+        query.select(root)
+                .where(spec.toPredicate(root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAMING_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // Обычное чтение без блокировок, задачи не загружаются целиком.
+    // Автор и исполнитель читаются из внешних ключей задачи, строки person не соединяются
+    @Override
+    public List<TaskRepository.TaskState> findStates(Specification<Task> spec, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Task> root = query.from(Task.class);
+
+        query.multiselect(root.get("id"), root.get("status"), root.get("priority"),
+                        root.get("author").get("id"), root.get("executor").get("id"), root.get("version"))
+                .where(spec.toPredicate(root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<TaskRepository.TaskState> states = new ArrayList<>(tuples.size());
+
+        for(Tuple tuple : tuples)
+            states.add(new TupleTaskState(tuple.get(0, Integer.class), tuple.get(1, Status.class), tuple.get(2, Priority.class),
+                    tuple.get(3, Integer.class), tuple.get(4, Integer.class), tuple.get(5, Integer.class)));
+
+        return states;
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllFields(Specification<Task> spec, Set<TaskField> fields, Pageable pageable) {
+        boolean withComments = fields.contains(TaskField.COMMENTS);
+
+        Set<TaskField> columns = EnumSet.noneOf(TaskField.class);
+        for(TaskField field : fields)
+            if(field.isColumn()) columns.add(field);
+        if(withComments) columns.add(TaskField.ID);
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Task> root = query.from(Task.class);
+
+        List<Selection<?>> selections = new ArrayList<>(columns.size());
+        for(TaskField field : columns)
+            selections.add(field.getPath(root).alias(field.getName()));
+
+        query.multiselect(selections)
+                .where(spec.toPredicate(root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+
+        if(pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Tuple> tuples = typedQuery.getResultList();
+        List<Map<String, Object>> tasks = new ArrayList<>(tuples.size());
+
+        for(Tuple tuple : tuples) {
+            Map<String, Object> task = new LinkedHashMap<>();
+
+            for(TaskField field : fields)
+                if(field.isColumn()) task.put(field.getName(), field.toValue(tuple.get(field.getName())));
+
+            tasks.add(task);
+        }
+
+        if(withComments && !tuples.isEmpty())
+            putComments(tuples, tasks);
+
+        return tasks;
+    }
+
+    private void putComments(List<Tuple> tuples, List<Map<String, Object>> tasks) {
+        Map<Integer, List<ShowCommentDTO>> commentsByTask = new HashMap<>();
+
+        for(Tuple tuple : tuples)
+            commentsByTask.put((Integer) tuple.get(TaskField.ID.getName()), new ArrayList<>());
+
+        List<Object[]> comments = entityManager.createQuery(
+                        "select c.task.id, c.id, c.text from Comment c where c.task.id in :taskIds order by c.id", Object[].class)
+                .setParameter("taskIds", commentsByTask.keySet())
+                .getResultList();
+
+        for(Object[] comment : comments) {
+            ShowCommentDTO showComment = new ShowCommentDTO();
+            showComment.setId((Integer) comment[1]);
+            showComment.setText((String) comment[2]);
+
+            commentsByTask.get((Integer) comment[0]).add(showComment);
+        }
+
+        for(int i = 0; i < tuples.size(); i++)
+            tasks.get(i).put(TaskField.COMMENTS.getName(), commentsByTask.get((Integer) tuples.get(i).get(TaskField.ID.getName())));
+    }
+
+    // Hibernate не группирует вставки при IDENTITY, поэтому задачи вставляются пакетами через JDBC,
+    // а id берутся из сгенерированных ключей пакета в порядке задач.
+    @Override
+    public List<Integer> insertAll(List<Task> tasks, int batchSize) {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+
+        for(int from = 0; from < tasks.size(); from += batchSize) {
+            List<Task> batch = tasks.subList(from, Math.min(from + batchSize, tasks.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_TASK, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Task task = batch.get(i);
+
+                            ps.setString(1, task.getDescription());
+                            ps.setString(2, task.getStatus().toString());
+                            ps.setString(3, task.getPriority().toString());
+                            ps.setInt(4, task.getAuthor().getId());
+
+                            if(task.getExecutor() != null)
+                                ps.setInt(5, task.getExecutor().getId());
+                            else
+                                ps.setNull(5, Types.INTEGER);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    }, keyHolder);
+
+            for(Map<String, Object> keys : keyHolder.getKeyList())
+                ids.add(((Number) keys.values().iterator().next()).intValue());
+        }
+
+        return ids;
+    }
+
+    private static class TupleTaskState implements TaskRepository.TaskState {
+        private final Integer id;
+        private final Status status;
+        private final Priority priority;
+        private final Integer authorId;
+        private final Integer executorId;
+        private final Integer version;
+
+        private TupleTaskState(Integer id, Status status, Priority priority, Integer authorId, Integer executorId, Integer version) {
+            this.id = id;
+            this.status = status;
+            this.priority = priority;
+            this.authorId = authorId;
+            this.executorId = executorId;
+            this.version = version;
+        }
+
+        @Override
+        public Integer getId() {
+            return id;
+        }
+
+        @Override
+        public Status getStatus() {
+            return status;
+        }
+
+        @Override
+        public Priority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public Integer getAuthorId() {
+            return authorId;
+        }
+
+        @Override
+        public Integer getExecutorId() {
+            return executorId;
+        }
+
+        @Override
+        public Integer getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package barinov.task.management.system.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Версии учётных данных пользователей, сменивших пароль после запуска приложения.
+ * Токен хранит версию на момент выпуска в claim cv, токены с меньшей версией считаются отозванными.
+ * Таблица живёт в памяти одного экземпляра и очищается при перезапуске.
+ */
+@Component
+public class CredentialsChangeRegistry {
+
+    private final Map<Integer, Integer> credentialsVersions = new ConcurrentHashMap<>();
+
+    public int getCredentialsVersion(int personId) {
+        return credentialsVersions.getOrDefault(personId, 0);
+    }
+
+    public void credentialsChanged(int personId) {
+        credentialsVersions.merge(personId, 1, Integer::sum);
+    }
+
+    public boolean isRevoked(int personId, int credentialsVersion) {
+        return credentialsVersion < getCredentialsVersion(personId);
+    }
+}
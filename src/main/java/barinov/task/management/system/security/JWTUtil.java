@@ -1,44 +1,166 @@
 package barinov.task.management.system.security;
 
+import barinov.task.management.system.models.Person;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 public class JWTUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private static final String SUBJECT = "User details";
+    private static final String ISSUER = "Barinov.task.management.system";
 
-    @Value("${jwt.lifetime}")
-    private int lifetime;
+    private final int lifetime;
 
-    public String generateToken(String email) {
+    private final boolean stateless;
+
+    private final CredentialsChangeRegistry credentialsChangeRegistry;
+
+    private final Algorithm algorithm;
+
+    private final JWTVerifier verifier;
+
+    // Уже проверенные токены живут в кэше до своего exp, поэтому повторный запрос
+    // с тем же токеном не проверяет подпись и не разбирает claims заново.
+    private final Cache<String, DecodedJWT> verifiedTokens;
+
+    @Autowired
+    public JWTUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.lifetime}") int lifetime,
+                   @Value("${jwt.cache.maximum-size}") long cacheMaximumSize,
+                   @Value("${jwt.stateless}") boolean stateless,
+                   CredentialsChangeRegistry credentialsChangeRegistry,
+                   MeterRegistry meterRegistry) {
+        this.lifetime = lifetime;
+        this.stateless = stateless;
+        this.credentialsChangeRegistry = credentialsChangeRegistry;
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withSubject(SUBJECT)
+                .withIssuer(ISSUER)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new ExpiryAtTokenExpiration())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwtTokens");
+    }
+
+    public String generateToken(Person person) {
         Date expirationDate = Date.from(ZonedDateTime.now().plusMinutes(lifetime).toInstant());
 
         return JWT.create()
-                .withSubject("User details")
-                .withClaim("email", email)
+                .withSubject(SUBJECT)
+                .withClaim("email", person.getEmail())
+                .withClaim("id", person.getId())
+                .withClaim("cv", credentialsChangeRegistry.getCredentialsVersion(person.getId()))
                 .withIssuedAt(new Date())
-                .withIssuer("Barinov.task.management.system")
+                .withIssuer(ISSUER)
                 .withExpiresAt(expirationDate)
-                .sign(Algorithm.HMAC256(secret));
+                .sign(algorithm);
     }
 
     public String validateTokenAndRetrieveClaim(String token) throws JWTVerificationException {
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secret))
-                .withSubject("User details")
-                .withIssuer("Barinov.task.management.system")
-                .build();
+        DecodedJWT jwt = verify(token);
+        checkNotRevoked(jwt);
 
-        DecodedJWT jwt = verifier.verify(token);
         return jwt.getClaim("email").asString();
     }
+
+    /**
+     * Собирает пользователя из claims токена без обращения к базе.
+     * Возвращает null, если токен выпущен без id пользователя или версии учётных данных и его нужно проверять по базе.
+     * Токен, выпущенный до смены пароля, отклоняется.
+     */
+    public PersonDetails validateTokenAndRetrievePersonDetails(String token) throws JWTVerificationException {
+        DecodedJWT jwt = verify(token);
+
+        Claim id = jwt.getClaim("id");
+
+        if(id.isMissing() || id.isNull() || jwt.getClaim("cv").isMissing())
+            return null;
+
+        checkNotRevoked(jwt);
+
+        Person person = new Person();
+        person.setId(id.asInt());
+        person.setEmail(jwt.getClaim("email").asString());
+
+        return new PersonDetails(person);
+    }
+
+    private void checkNotRevoked(DecodedJWT jwt) throws JWTVerificationException {
+        Claim id = jwt.getClaim("id");
+        Claim credentialsVersion = jwt.getClaim("cv");
+
+        if(id.isMissing() || id.isNull() || credentialsVersion.isMissing())
+            return;
+
+        if(credentialsChangeRegistry.isRevoked(id.asInt(), credentialsVersion.asInt()))
+            throw new JWTVerificationException("Токен отозван");
+    }
+
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    private DecodedJWT verify(String token) throws JWTVerificationException {
+        DecodedJWT jwt = verifiedTokens.getIfPresent(token);
+
+        if(jwt == null) {
+            jwt = verifier.verify(token);
+            verifiedTokens.put(token, jwt);
+        }
+
+        return jwt;
+    }
+
+    public long getCacheHitCount() {
+        return verifiedTokens.stats().hitCount();
+    }
+
+    public long getCacheMissCount() {
+        return verifiedTokens.stats().missCount();
+    }
+
+    private static class ExpiryAtTokenExpiration implements Expiry<String, DecodedJWT> {
+
+        @Override
+        public long expireAfterCreate(String token, DecodedJWT jwt, long currentTime) {
+            Date expiresAt = jwt.getExpiresAt();
+
+            if(expiresAt == null)
+                return 0;
+
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAt.getTime() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, DecodedJWT jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, DecodedJWT jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -2,9 +2,12 @@ package barinov.task.management.system.services;
 
 import barinov.task.management.system.models.Comment;
 import barinov.task.management.system.repositories.CommentRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @Transactional
 public class CommentService {
@@ -17,4 +20,13 @@ public class CommentService {
     public void save(Comment comment) {
         commentRepository.save(comment);
     }
+
+    public void saveAll(int taskId, List<String> texts) {
+        commentRepository.insertAll(taskId, texts);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Comment> getCommentsAfter(int taskId, int after, int size) {
+        return commentRepository.findByTaskIdAndIdGreaterThanOrderByIdAsc(taskId, after, Limit.of(size));
+    }
 }
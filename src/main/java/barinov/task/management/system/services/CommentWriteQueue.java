@@ -0,0 +1,249 @@
+package barinov.task.management.system.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Очередь комментариев для асинхронной записи. Комментарии принимаются в ограниченную очередь,
+ * а отдельный поток записывает их пачками одной транзакцией, когда набирается batch-size
+ * комментариев или проходит linger миллисекунд с первого комментария пачки.
+ * Временные ошибки базы повторяются, при остальных ошибках пачка делится по задачам и комментариям,
+ * чтобы отбросить только те, которые записать нельзя.
+ * При остановке приложения очередь дописывается до конца.
+ */
+@Service
+public class CommentWriteQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentWriteQueue.class);
+
+    // Будит поток записи при остановке, чтобы он не ждал linger
+    private static final PendingComment STOP = new PendingComment(0, null);
+
+    private final TaskService taskService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final int maxRetries;
+    private final long retryBackoff;
+    private final BlockingQueue<PendingComment> queue;
+    private final Timer flushTimer;
+    private final Counter droppedCounter;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public CommentWriteQueue(TaskService taskService,
+                             @Value("${task.comment.async.enabled}") boolean enabled,
+                             @Value("${task.comment.async.queue-capacity}") int queueCapacity,
+                             @Value("${task.comment.async.batch-size}") int batchSize,
+                             @Value("${task.comment.async.linger}") long linger,
+                             @Value("${task.comment.async.max-retries}") int maxRetries,
+                             @Value("${task.comment.async.retry-backoff}") long retryBackoff,
+                             MeterRegistry meterRegistry) {
+        this.taskService = taskService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(linger);
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.flushTimer = Timer.builder("comment.queue.flush")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("comment.queue.dropped")
+                .register(meterRegistry);
+
+        Gauge.builder("comment.queue", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // false, если очередь заполнена или уже остановлена
+    public boolean offer(int taskId, String text) {
+        return running && queue.offer(new PendingComment(taskId, text));
+    }
+
+    @Override
+    public void start() {
+        if(!enabled)
+            return;
+
+        running = true;
+        writer = new Thread(this::writeLoop, "comment-writer");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+
+        if(writer == null)
+            return;
+
+        queue.offer(STOP);
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Комментарии, принятые одновременно с остановкой, после выхода потока записи
+        List<PendingComment> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.remove(STOP);
+
+        for(int from = 0; from < rest.size(); from += batchSize)
+            flush(rest.subList(from, Math.min(from + batchSize, rest.size())));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void writeLoop() {
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+
+        while(running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+
+            batch.remove(STOP);
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    // После остановки пачка добирается только из того, что уже лежит в очереди, без ожидания
+    private void collectBatch(List<PendingComment> batch) throws InterruptedException {
+        PendingComment first = running ? queue.poll(lingerNanos, TimeUnit.NANOSECONDS) : queue.poll();
+
+        if(first == null || first == STOP)
+            return;
+
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+
+        while(batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+
+            long remaining = deadline - System.nanoTime();
+
+            if(batch.size() >= batchSize || remaining <= 0 || !running)
+                return;
+
+            PendingComment next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+
+            if(next == null || next == STOP)
+                return;
+
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingComment> batch) {
+        if(batch.isEmpty())
+            return;
+
+        // Задачи обновляются в порядке id, чтобы параллельные транзакции не блокировали друг друга
+        Map<Integer, List<String>> textsByTask = new TreeMap<>();
+
+        for(PendingComment comment : batch)
+            textsByTask.computeIfAbsent(comment.taskId, id -> new ArrayList<>()).add(comment.text);
+
+        flushTimer.record(() -> write(textsByTask));
+    }
+
+    private void write(Map<Integer, List<String>> textsByTask) {
+        try {
+            Set<Integer> missingTasks = appendWithRetry(textsByTask);
+
+            for(Integer taskId : missingTasks)
+                droppedCounter.increment(textsByTask.get(taskId).size());
+        } catch (RuntimeException e) {
+            // База недоступна и после повторов: деление пачки только умножит число попыток
+            if(!isTransient(e) && textsByTask.size() > 1) {
+                textsByTask.forEach((taskId, texts) -> write(Map.of(taskId, texts)));
+                return;
+            }
+
+            Map.Entry<Integer, List<String>> task = textsByTask.entrySet().iterator().next();
+
+            if(!isTransient(e) && task.getValue().size() > 1) {
+                for(String text : task.getValue())
+                    write(Map.of(task.getKey(), List.of(text)));
+
+                return;
+            }
+
+            int count = textsByTask.values().stream().mapToInt(List::size).sum();
+
+            droppedCounter.increment(count);
+            log.error("Не удалось записать {} комментариев", count, e);
+        }
+    }
+
+    private Set<Integer> appendWithRetry(Map<Integer, List<String>> textsByTask) {
+        for(int attempt = 1; ; attempt++) {
+            try {
+                return taskService.appendComments(textsByTask);
+            } catch (RuntimeException e) {
+                if(!isTransient(e) || attempt > maxRetries)
+                    throw e;
+
+                log.warn("Не удалось записать комментарии, попытка {} из {}", attempt, maxRetries + 1, e);
+
+                try {
+                    Thread.sleep(retryBackoff * attempt);
+                } catch (InterruptedException interrupted) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Взаимоблокировки, таймауты блокировок и потеря соединения проходят при повторе
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private static class PendingComment {
+        private final int taskId;
+        private final String text;
+
+        private PendingComment(int taskId, String text) {
+            this.taskId = taskId;
+            this.text = text;
+        }
+    }
+}
@@ -11,6 +11,9 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -37,6 +40,30 @@ public class PersonDetailsService implements UserDetailsService {
         return peopleRepository.findById(id).orElseThrow(PersonNotFoundException::new);
     }
 
+    // Без загрузки самого человека, для назначения по ссылке
+    public Person getPersonReferenceById(int id) {
+        if(!peopleRepository.existsById(id))
+            throw new PersonNotFoundException();
+
+        return peopleRepository.getReferenceById(id);
+    }
+
+    public Map<Integer, Person> getPeopleByIds(Collection<Integer> ids) {
+        Map<Integer, Person> people = new HashMap<>();
+
+        for(Person person : peopleRepository.findAllById(ids))
+            people.put(person.getId(), person);
+
+        if(people.size() != ids.size())
+            throw new PersonNotFoundException();
+
+        return people;
+    }
+
+    public Optional<Person> findPersonByEmail(String email) {
+        return peopleRepository.findByEmail(email);
+    }
+
     public boolean containsPersonWithEmail(String email) {
         return peopleRepository.findByEmail(email).isPresent();
     }
@@ -1,7 +1,10 @@
 package barinov.task.management.system.services;
 
+import barinov.task.management.system.exceptions.PersonNotFoundException;
 import barinov.task.management.system.models.Person;
 import barinov.task.management.system.repositories.PeopleRepository;
+import barinov.task.management.system.security.CredentialsChangeRegistry;
+import barinov.task.management.system.util.AfterCommit;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -14,10 +17,13 @@ public class RegistrationService {
 
     private final PasswordEncoder passwordEncoder;
 
+    private final CredentialsChangeRegistry credentialsChangeRegistry;
+
     @Autowired
-    public RegistrationService(PeopleRepository peopleRepository, PasswordEncoder passwordEncoder) {
+    public RegistrationService(PeopleRepository peopleRepository, PasswordEncoder passwordEncoder, CredentialsChangeRegistry credentialsChangeRegistry) {
         this.peopleRepository = peopleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.credentialsChangeRegistry = credentialsChangeRegistry;
     }
 
     @Transactional
@@ -26,4 +32,15 @@ public class RegistrationService {
 
         peopleRepository.save(person);
     }
+
+    // Токены, выпущенные до смены пароля, отзываются после коммита
+    @Transactional
+    public Person changePassword(int personId, String password) {
+        Person person = peopleRepository.findById(personId).orElseThrow(PersonNotFoundException::new);
+        person.setPassword(passwordEncoder.encode(password));
+
+        AfterCommit.run(() -> credentialsChangeRegistry.credentialsChanged(personId));
+
+        return person;
+    }
 }
@@ -0,0 +1,203 @@
+package barinov.task.management.system.services;
+
+import barinov.task.management.system.dto.TaskEventDTO;
+import barinov.task.management.system.models.TaskEvent;
+import barinov.task.management.system.repositories.TaskEventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Читает события из outbox task_event и рассылает их подписчикам SSE.
+ * У каждого подписчика свой ограниченный буфер, отправка идёт на отдельном пуле потоков.
+ * Подписчик, чей буфер переполнен, получает событие resync и отключается,
+ * чтобы медленный клиент не задерживал остальных.
+ */
+@Service
+public class TaskEventDispatcher {
+
+    private final TaskEventRepository taskEventRepository;
+    private final long safetyLag;
+    private final int batchSize;
+    private final int bufferSize;
+    private final long emitterTimeout;
+    private final long retention;
+    private final ExecutorService senders;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // id последнего разосланного события, -1 пока нет подписчиков
+    private long lastId = -1;
+
+    @Autowired
+    public TaskEventDispatcher(TaskEventRepository taskEventRepository,
+                               @Value("${task.events.safety-lag}") long safetyLag,
+                               @Value("${task.events.batch-size}") int batchSize,
+                               @Value("${task.events.buffer-size}") int bufferSize,
+                               @Value("${task.events.emitter-timeout}") long emitterTimeout,
+                               @Value("${task.events.retention}") long retention,
+                               @Value("${task.events.sender-threads}") int senderThreads,
+                               @Value("${spring.threads.virtual.enabled}") boolean virtualThreads,
+                               MeterRegistry meterRegistry) {
+        this.taskEventRepository = taskEventRepository;
+        this.safetyLag = safetyLag;
+        this.batchSize = batchSize;
+        this.bufferSize = bufferSize;
+        this.emitterTimeout = emitterTimeout;
+        this.retention = retention;
+
+        // Отправка блокируется на записи в сокет, поэтому с виртуальными потоками
+        // каждая отправка идёт в своём потоке без ограничения пула
+        if(virtualThreads) {
+            this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                    .name("task-event-sender-", 1)
+                    .factory());
+        } else {
+            this.senders = Executors.newFixedThreadPool(senderThreads, Thread.ofPlatform()
+                    .name("task-event-sender-", 1)
+                    .daemon(true)
+                    .factory());
+        }
+
+        Gauge.builder("task.events.subscribers", subscribers, List::size)
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Integer authorId, Integer executorId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        Subscriber subscriber = new Subscriber(emitter, authorId, executorId, bufferSize);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${task.events.poll-interval}")
+    public void dispatch() {
+        if(subscribers.isEmpty()) {
+            lastId = -1;
+            return;
+        }
+
+        if(lastId < 0)
+            lastId = taskEventRepository.findMaxId();
+
+        List<TaskEvent> events;
+
+        do {
+            events = taskEventRepository.findSettledAfter(lastId, safetyLag, batchSize);
+
+            for(TaskEvent event : events) {
+                TaskEventDTO eventDTO = new TaskEventDTO(event.getId(), event.getTaskId(), event.getType().toString(),
+                        event.getAuthorId(), event.getExecutorId());
+
+                for(Subscriber subscriber : subscribers) {
+                    if(subscriber.matches(eventDTO) && !subscriber.buffer.offer(eventDTO)) {
+                        subscribers.remove(subscriber);
+                        subscriber.resyncRequired = true;
+                        drain(subscriber);
+                    }
+                }
+
+                lastId = event.getId();
+            }
+        } while(events.size() == batchSize);
+
+        for(Subscriber subscriber : subscribers) {
+            if(!subscriber.buffer.isEmpty())
+                drain(subscriber);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${task.events.cleanup-interval}")
+    @Transactional
+    public void deleteOldEvents() {
+        taskEventRepository.deleteOlderThan(retention, taskEventRepository.findMaxId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for(Subscriber subscriber : subscribers)
+            subscriber.emitter.complete();
+
+        senders.shutdown();
+    }
+
+    private void drain(Subscriber subscriber) {
+        if(!subscriber.draining.compareAndSet(false, true))
+            return;
+
+        senders.execute(() -> {
+            try {
+                TaskEventDTO event;
+
+                while((event = subscriber.buffer.poll()) != null && !subscriber.resyncRequired) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getId()))
+                            .name("task")
+                            .data(event));
+                }
+
+                if(subscriber.resyncRequired) {
+                    subscriber.closed = true;
+                    subscriber.emitter.send(SseEmitter.event()
+                            .name("resync")
+                            .data("resync"));
+                    subscriber.emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscriber.closed = true;
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+            } finally {
+                subscriber.draining.set(false);
+            }
+
+            // События или resync могли прийти после того, как буфер опустел, но до снятия флага
+            if(!subscriber.closed && (subscriber.resyncRequired || !subscriber.buffer.isEmpty()))
+                drain(subscriber);
+        });
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final Integer authorId;
+        private final Integer executorId;
+        private final Queue<TaskEventDTO> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private volatile boolean resyncRequired;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, Integer authorId, Integer executorId, int bufferSize) {
+            this.emitter = emitter;
+            this.authorId = authorId;
+            this.executorId = executorId;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean matches(TaskEventDTO event) {
+            return (authorId == null || authorId.equals(event.getAuthorId()))
+                    && (executorId == null || executorId.equals(event.getExecutorId()));
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package barinov.task.management.system.services;
+
+import barinov.task.management.system.repositories.CommentRepository;
+import barinov.task.management.system.repositories.TaskRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Инвертированный индекс по описаниям и комментариям задач.
+ * Строится при старте приложения до того, как веб-сервер начнёт принимать запросы,
+ * поэтому построение не пересекается с изменениями задач. Дальше обновляется после коммита изменений задач.
+ */
+@Service
+public class TaskSearchIndex implements SmartInitializingSingleton {
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    private final TaskRepository taskRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, TaskDocument> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public TaskSearchIndex(TaskRepository taskRepository, CommentRepository commentRepository, PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        build();
+    }
+
+    public void build() {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<TaskRepository.TaskText> tasks = taskRepository.streamAllTexts()) {
+                tasks.forEach(task -> indexTask(task.getId(), task.getDescription()));
+            }
+
+            try (Stream<CommentRepository.CommentText> comments = commentRepository.streamAllTexts()) {
+                comments.forEach(comment -> indexComment(comment.getTaskId(), comment.getText()));
+            }
+        });
+    }
+
+    public void indexTask(int taskId, String description) {
+        Map<String, Integer> terms = tokenize(description);
+
+        lock.writeLock().lock();
+        try {
+            TaskDocument document = documents.computeIfAbsent(taskId, id -> new TaskDocument());
+            Set<String> changedTerms = new HashSet<>(document.descriptionTerms.keySet());
+            changedTerms.addAll(terms.keySet());
+
+            document.descriptionTerms = terms;
+            updatePostings(taskId, document, changedTerms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexComment(int taskId, String text) {
+        Map<String, Integer> terms = tokenize(text);
+
+        lock.writeLock().lock();
+        try {
+            TaskDocument document = documents.computeIfAbsent(taskId, id -> new TaskDocument());
+
+            for(Map.Entry<String, Integer> term : terms.entrySet())
+                document.commentTerms.merge(term.getKey(), term.getValue(), Integer::sum);
+
+            updatePostings(taskId, document, terms.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeTask(int taskId) {
+        lock.writeLock().lock();
+        try {
+            TaskDocument document = documents.remove(taskId);
+
+            if(document == null)
+                return;
+
+            Set<String> terms = new HashSet<>(document.descriptionTerms.keySet());
+            terms.addAll(document.commentTerms.keySet());
+
+            for(String term : terms)
+                removePosting(term, taskId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает id не более limit задач, содержащих хотя бы одно слово запроса, по убыванию релевантности (tf-idf).
+     * Списки задач слов упорядочены по id, поэтому они сливаются без промежуточной карты оценок,
+     * а лучшие limit задач отбираются кучей размера limit.
+     */
+    public List<Integer> search(String query, int limit) {
+        Set<String> terms = tokenize(query).keySet();
+        TopScores top = new TopScores(limit);
+
+        lock.readLock().lock();
+        try {
+            List<Postings> termPostings = new ArrayList<>(terms.size());
+
+            for(String term : terms) {
+                Postings found = postings.get(term);
+
+                if(found != null)
+                    termPostings.add(found);
+            }
+
+            int termCount = termPostings.size();
+            int documentCount = documents.size();
+            double[] idfs = new double[termCount];
+            int[] positions = new int[termCount];
+
+            for(int t = 0; t < termCount; t++)
+                idfs[t] = Math.log(1 + (double) documentCount / termPostings.get(t).size);
+
+            while(true) {
+                int taskId = Integer.MAX_VALUE;
+                boolean found = false;
+
+                for(int t = 0; t < termCount; t++) {
+                    Postings current = termPostings.get(t);
+
+                    if(positions[t] < current.size && current.taskIds[positions[t]] <= taskId) {
+                        taskId = current.taskIds[positions[t]];
+                        found = true;
+                    }
+                }
+
+                if(!found)
+                    break;
+
+                double score = 0;
+
+                for(int t = 0; t < termCount; t++) {
+                    Postings current = termPostings.get(t);
+
+                    if(positions[t] < current.size && current.taskIds[positions[t]] == taskId) {
+                        score += (1 + Math.log(current.frequencies[positions[t]])) * idfs[t];
+                        positions[t]++;
+                    }
+                }
+
+                top.offer(taskId, score);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return top.toRankedIds();
+    }
+
+    private void updatePostings(int taskId, TaskDocument document, Set<String> terms) {
+        for(String term : terms) {
+            int frequency = document.descriptionTerms.getOrDefault(term, 0)
+                    + document.commentTerms.getOrDefault(term, 0);
+
+            if(frequency == 0)
+                removePosting(term, taskId);
+            else
+                postings.computeIfAbsent(term, t -> new Postings()).put(taskId, frequency);
+        }
+    }
+
+    private void removePosting(String term, int taskId) {
+        Postings termPostings = postings.get(term);
+
+        if(termPostings == null)
+            return;
+
+        termPostings.remove(taskId);
+
+        if(termPostings.size == 0)
+            postings.remove(term);
+    }
+
+    private static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> terms = new HashMap<>();
+
+        if(text == null)
+            return terms;
+
+        int start = -1;
+
+        for(int i = 0; i <= text.length(); i++) {
+            boolean letterOrDigit = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+
+            if(letterOrDigit && start < 0) {
+                start = i;
+            } else if(!letterOrDigit && start >= 0) {
+                if(i - start >= MIN_TOKEN_LENGTH)
+                    terms.merge(text.substring(start, i).toLowerCase(Locale.ROOT), 1, Integer::sum);
+
+                start = -1;
+            }
+        }
+
+        return terms;
+    }
+
+    private static class TaskDocument {
+        private Map<String, Integer> descriptionTerms = new HashMap<>();
+        private final Map<String, Integer> commentTerms = new HashMap<>();
+    }
+
+    /**
+     * Куча лучших задач ограниченного размера. В корне худшая из отобранных: с меньшей оценкой,
+     * при равных оценках с большим id.
+     */
+    private static class TopScores {
+        private final int limit;
+        private int[] taskIds;
+        private double[] scores;
+        private int size;
+
+        private TopScores(int limit) {
+            this.limit = limit;
+            this.taskIds = new int[Math.max(0, Math.min(limit, 16))];
+            this.scores = new double[taskIds.length];
+        }
+
+        private void offer(int taskId, double score) {
+            if(size < limit) {
+                if(size == taskIds.length) {
+                    int capacity = (int) Math.min(2L * size, limit);
+                    taskIds = Arrays.copyOf(taskIds, capacity);
+                    scores = Arrays.copyOf(scores, capacity);
+                }
+
+                taskIds[size] = taskId;
+                scores[size] = score;
+                siftUp(size++);
+            } else if(size > 0 && (score > scores[0] || (score == scores[0] && taskId < taskIds[0]))) {
+                taskIds[0] = taskId;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        private List<Integer> toRankedIds() {
+            Integer[] ranked = new Integer[size];
+
+            for(int i = size - 1; i >= 0; i--) {
+                ranked[i] = taskIds[0];
+                size--;
+                swap(0, size);
+                siftDown(0);
+            }
+
+            return Arrays.asList(ranked);
+        }
+
+        private void siftUp(int i) {
+            while(i > 0) {
+                int parent = (i - 1) / 2;
+
+                if(!isWorse(i, parent))
+                    return;
+
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while(true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+
+                if(left < size && isWorse(left, worst))
+                    worst = left;
+                if(right < size && isWorse(right, worst))
+                    worst = right;
+
+                if(worst == i)
+                    return;
+
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private boolean isWorse(int i, int j) {
+            return scores[i] < scores[j] || (scores[i] == scores[j] && taskIds[i] > taskIds[j]);
+        }
+
+        private void swap(int i, int j) {
+            int taskId = taskIds[i];
+            taskIds[i] = taskIds[j];
+            taskIds[j] = taskId;
+
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+
+    /**
+     * Список задач со словом и частотой слова в каждой из них, упорядоченный по id задачи.
+     */
+    private static class Postings {
+        private int[] taskIds = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        private void put(int taskId, int frequency) {
+            int index = Arrays.binarySearch(taskIds, 0, size, taskId);
+
+            if(index >= 0) {
+                frequencies[index] = frequency;
+                return;
+            }
+
+            index = -index - 1;
+
+            if(size == taskIds.length) {
+                taskIds = Arrays.copyOf(taskIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+
+            System.arraycopy(taskIds, index, taskIds, index + 1, size - index);
+            System.arraycopy(frequencies, index, frequencies, index + 1, size - index);
+
+            taskIds[index] = taskId;
+            frequencies[index] = frequency;
+            size++;
+        }
+
+        private void remove(int taskId) {
+            int index = Arrays.binarySearch(taskIds, 0, size, taskId);
+
+            if(index < 0)
+                return;
+
+            System.arraycopy(taskIds, index + 1, taskIds, index, size - index - 1);
+            System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+            size--;
+        }
+    }
+}
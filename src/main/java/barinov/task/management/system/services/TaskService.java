@@ -1,31 +1,65 @@
 package barinov.task.management.system.services;
 
+import barinov.task.management.system.dto.CommentSliceDTO;
+import barinov.task.management.system.dto.ShowCommentDTO;
 import barinov.task.management.system.dto.ShowTaskDTO;
 import barinov.task.management.system.dto.TaskDTO;
-import barinov.task.management.system.exceptions.NotCorrectJsonPatch;
+import barinov.task.management.system.dto.TaskChangesDTO;
+import barinov.task.management.system.dto.TaskSliceDTO;
+import barinov.task.management.system.dto.TaskStatsDTO;
+import barinov.task.management.system.dto.TaskUpdateOutcome;
 import barinov.task.management.system.models.*;
+import barinov.task.management.system.repositories.TaskEventRepository;
 import barinov.task.management.system.repositories.TaskRepository;
+import barinov.task.management.system.security.PersonDetails;
+import barinov.task.management.system.exceptions.BulkUpdateTooLargeException;
+import barinov.task.management.system.exceptions.ChangesTokenExpiredException;
 import barinov.task.management.system.exceptions.NoAccessToTaskException;
 import barinov.task.management.system.exceptions.TaskNotFoundException;
+import barinov.task.management.system.exceptions.TaskStatusConflictException;
+import barinov.task.management.system.exceptions.TaskVersionMismatchException;
+import barinov.task.management.system.util.AfterCommit;
+import barinov.task.management.system.util.ConverterCommentAndCommentDTOs;
 import barinov.task.management.system.util.ConverterTaskAndTaskDTOs;
 import barinov.task.management.system.util.GeneratorExceptionWithMessageTaskDTO;
+import barinov.task.management.system.util.TaskCursor;
+import barinov.task.management.system.util.TaskField;
+import barinov.task.management.system.util.TaskPatchApplier;
 import barinov.task.management.system.util.TaskDTOValidator;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonpatch.JsonPatch;
-import com.github.fge.jsonpatch.JsonPatchException;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.BindingResult;
 
 import java.security.Principal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -34,117 +68,698 @@ public class TaskService {
     private final TaskRepository taskRepository;
     private final PersonDetailsService personDetailsService;
     private final CommentService commentService;
-    private final ObjectMapper objectMapper;
     private final ConverterTaskAndTaskDTOs converter;
+    private final ConverterCommentAndCommentDTOs converterComment;
     private final GeneratorExceptionWithMessageTaskDTO generatorExceptionTaskDTO;
+    private final EntityManager entityManager;
+    private final TaskSearchIndex searchIndex;
+    private final TaskStatisticsService statisticsService;
+    private final TaskPatchApplier taskPatchApplier;
+    private final TaskEventRepository taskEventRepository;
+    private final CacheManager cacheManager;
+
+    @Value("${task.export.clear-interval}")
+    private int exportClearInterval;
+
+    @Value("${task.search.batch-size}")
+    private int searchBatchSize;
+
+    @Value("${task.bulk.batch-size}")
+    private int bulkBatchSize;
+
+    @Value("${task.bulk.max-size}")
+    private int bulkMaxSize;
+
+    @Value("${task.bulk.max-update-size}")
+    private int bulkMaxUpdateSize;
+
+    @Value("${task.events.safety-lag}")
+    private long eventsSafetyLag;
+
+    @Value("${task.changes.max-events}")
+    private int changesMaxEvents;
 
     @Autowired
-    public TaskService(TaskRepository taskRepository, PersonDetailsService personDetailsService, CommentService commentService, ObjectMapper objectMapper, ConverterTaskAndTaskDTOs converter, GeneratorExceptionWithMessageTaskDTO generatorExceptionTaskDTO) {
+    public TaskService(TaskRepository taskRepository, PersonDetailsService personDetailsService, CommentService commentService, ConverterTaskAndTaskDTOs converter, ConverterCommentAndCommentDTOs converterComment, GeneratorExceptionWithMessageTaskDTO generatorExceptionTaskDTO, EntityManager entityManager, TaskSearchIndex searchIndex, TaskStatisticsService statisticsService, CacheManager cacheManager, TaskPatchApplier taskPatchApplier, TaskEventRepository taskEventRepository) {
         this.taskRepository = taskRepository;
         this.personDetailsService = personDetailsService;
         this.commentService = commentService;
-        this.objectMapper = objectMapper;
         this.converter = converter;
+        this.converterComment = converterComment;
         this.generatorExceptionTaskDTO = generatorExceptionTaskDTO;
+        this.entityManager = entityManager;
+        this.searchIndex = searchIndex;
+        this.statisticsService = statisticsService;
+        this.cacheManager = cacheManager;
+        this.taskPatchApplier = taskPatchApplier;
+        this.taskEventRepository = taskEventRepository;
     }
 
     public Integer saveTaskAndGetId(Task task, Person author) {
         task.setAuthor(author);
 
-        return taskRepository.save(task).getId();
+        Task saved = taskRepository.save(task);
+        TaskStatisticsService.Key key = TaskStatisticsService.Key.of(saved);
+        publishEvent(TaskEventType.CREATED, List.of(saved.getId()));
+
+        AfterCommit.run(() -> {
+            searchIndex.indexTask(saved.getId(), saved.getDescription());
+            statisticsService.taskAdded(key);
+        });
+
+        return saved.getId();
     }
 
-    public void editTaskById(JsonPatch jsonPatch, int id, Principal principal, BindingResult bindingResult, TaskDTOValidator validator) {
-        Task task = taskRepository.findById(id).orElseThrow(TaskNotFoundException::new);
-        Person author = task.getAuthor();
-        TaskDTO target = converter.convertToTaskDTO(task);
+    public List<Integer> saveTasksAndGetIds(List<Task> tasks, Person author) {
+        checkBulkCreateSize(tasks.size());
+
+        for(Task task : tasks)
+            task.setAuthor(author);
 
-        if(author.getEmail().equals(principal.getName())) {
-            try {
-                JsonNode patched = jsonPatch.apply(objectMapper.convertValue(target, JsonNode.class));
-                TaskDTO taskDTO = objectMapper.treeToValue(patched, TaskDTO.class);
+        List<Integer> ids = taskRepository.insertAll(tasks, bulkBatchSize);
+        publishEvent(TaskEventType.CREATED, ids);
 
-                generatorExceptionTaskDTO.validOrGenerateException(taskDTO, bindingResult, validator);
+        List<TaskStatisticsService.Key> keys = new ArrayList<>(tasks.size());
 
-                task = converter.convertToTask(taskDTO);
+        for(Task task : tasks)
+            keys.add(TaskStatisticsService.Key.of(task));
 
-                task.setId(id);
-                saveTaskAndGetId(task, author);
-            } catch (JsonPatchException | JsonProcessingException e) {
-                throw new NotCorrectJsonPatch();
+        AfterCommit.run(() -> {
+            for(int i = 0; i < ids.size(); i++) {
+                searchIndex.indexTask(ids.get(i), tasks.get(i).getDescription());
+                statisticsService.taskAdded(keys.get(i));
             }
-        } else {
-            throw new NoAccessToTaskException();
-        }
+        });
+
+        return ids;
     }
 
+    // Патч применяется к управляемой задаче, при коммите обновляются только изменённые колонки
+    @CacheEvict(value = "tasks", key = "#id")
+    public void editTaskById(JsonPatch jsonPatch, int id, Integer expectedVersion, Principal principal, BindingResult bindingResult, TaskDTOValidator validator) {
+        Task task = taskRepository.findById(id).orElseThrow(TaskNotFoundException::new);
+        checkVersion(task, expectedVersion);
+
+        if(!task.getAuthor().getEmail().equals(principal.getName()))
+            throw new NoAccessToTaskException();
+
+        TaskDTO taskDTO = taskPatchApplier.apply(jsonPatch, converter.convertToTaskDTO(task));
+
+        generatorExceptionTaskDTO.validOrGenerateException(taskDTO, bindingResult, validator);
+
+        // Статус в патче меняется по тем же правилам переходов, что и через изменение статуса
+        Status status = Status.valueOf(taskDTO.getStatus());
+
+        if(status != task.getStatus() && !task.getStatus().canTransitionTo(status))
+            throw new TaskStatusConflictException("Задачу нельзя перевести из статуса " + task.getStatus() + " в статус " + status);
+
+        Priority priority = Priority.valueOf(taskDTO.getPriority());
+        Integer executorId = task.getExecutor() != null ? task.getExecutor().getId() : null;
+        Integer newExecutorId = taskDTO.getExecutorId() > 0 ? taskDTO.getExecutorId() : null;
+
+        TaskStatisticsService.Key oldKey = TaskStatisticsService.Key.of(task);
+        boolean descriptionChanged = !Objects.equals(task.getDescription(), taskDTO.getDescription());
+
+        if(status != task.getStatus() || priority != task.getPriority() || !Objects.equals(executorId, newExecutorId))
+            publishPreviousState(List.of(id));
+
+        task.setDescription(taskDTO.getDescription());
+        task.setStatus(status);
+        task.setPriority(priority);
+
+        if(newExecutorId == null)
+            task.setExecutor(null);
+        else if(!newExecutorId.equals(executorId))
+            task.setExecutor(personDetailsService.getPersonReferenceById(newExecutorId));
 
+        TaskStatisticsService.Key newKey = TaskStatisticsService.Key.of(task);
+        String description = task.getDescription();
+        publishEvent(TaskEventType.UPDATED, List.of(id));
+
+        AfterCommit.run(() -> {
+            if(descriptionChanged) searchIndex.indexTask(id, description);
+            statisticsService.taskReplaced(oldKey, newKey);
+        });
+    }
 
     @Transactional(readOnly = true)
     public Task getTask(int id) {
         return taskRepository.findById(id).orElseThrow(TaskNotFoundException::new);
     }
 
+    @Transactional(readOnly = true)
+    public int getTaskVersion(int id) {
+        return taskRepository.findVersionById(id).orElseThrow(TaskNotFoundException::new);
+    }
+
+    @Cacheable(value = "tasks", key = "#id")
+    @Transactional(readOnly = true)
+    public ShowTaskDTO getShowTask(int id) {
+        return converter.convertToShowTaskDTO(getTask(id), false);
+    }
+
+    @Transactional(readOnly = true)
+    public ShowTaskDTO getShowTaskWithComments(int id) {
+        return converter.convertToShowTaskDTO(getTask(id), true);
+    }
+
+    @Transactional(readOnly = true)
+    public CommentSliceDTO getComments(int taskId, int after, int size) {
+        List<Comment> comments = commentService.getCommentsAfter(taskId, after, size);
+
+        if(comments.isEmpty() && !taskRepository.existsById(taskId))
+            throw new TaskNotFoundException();
+
+        List<ShowCommentDTO> showComments = new ArrayList<>(comments.size());
+
+        for(Comment comment : comments)
+            showComments.add(converterComment.convertToShowCommentDTO(comment));
+
+        Integer nextAfter = comments.size() == size
+                ? comments.get(comments.size() - 1).getId()
+                : null;
+
+        return new CommentSliceDTO(showComments, nextAfter);
+    }
+
+    @CacheEvict(value = "tasks", key = "#id")
     public void deleteTask(int id, Principal principal) {
         Task task = taskRepository.findById(id).orElseThrow(TaskNotFoundException::new);
 
-        if(task.getAuthor().getEmail().equals(principal.getName()))
+        if(task.getAuthor().getEmail().equals(principal.getName())) {
+            TaskStatisticsService.Key key = TaskStatisticsService.Key.of(task);
+
+            // Событие пишется до удаления, пока строка задачи ещё есть
+            publishEvent(TaskEventType.DELETED, List.of(id));
             taskRepository.deleteById(id);
-        else {
+
+            AfterCommit.run(() -> {
+                searchIndex.removeTask(id);
+                statisticsService.taskRemoved(key);
+            });
+        } else {
             throw new NoAccessToTaskException();
         }
     }
 
-    public void changeStatus(int id, Status status, Principal principal) {
-        Task task = taskRepository.findById(id).orElseThrow(TaskNotFoundException::new);
+    @CacheEvict(value = "tasks", key = "#id")
+    public void changeStatus(int id, Status status, Integer expectedVersion, Principal principal) {
+        Integer personId = getPersonId(principal);
+        Status previousStatus = status.getPreviousStatus();
 
-        String currentLogin = principal.getName();
+        // Если статус не изменится, исключение откатит и это событие
+        publishPreviousState(List.of(id));
 
-        if(task.getAuthor().getEmail().equals(currentLogin)
-                || (task.getExecutor() != null && task.getExecutor().getEmail().equals(currentLogin))) {
+        if(taskRepository.updateStatus(id, status, previousStatus, personId, expectedVersion) > 0) {
+            // Транзакция видит собственное изменение, остальные значения счётчиков берутся из строки задачи
+            TaskStatisticsService.Key newKey = taskRepository.findStateById(id)
+                    .map(TaskStatisticsService.Key::of)
+                    .orElseThrow(TaskNotFoundException::new);
+            TaskStatisticsService.Key oldKey = newKey.withStatus(previousStatus);
 
-            task.setStatus(status);
-            taskRepository.save(task);
-        } else {
-            throw new NoAccessToTaskException();
+            publishEvent(TaskEventType.UPDATED, List.of(id));
+            AfterCommit.run(() -> statisticsService.taskReplaced(oldKey, newKey));
+            return;
         }
+
+        // Задача не изменилась, по её текущему состоянию определяем причину
+        TaskRepository.TaskState state = taskRepository.findStateById(id).orElseThrow(TaskNotFoundException::new);
+
+        if(!isAuthorOrExecutor(state, personId))
+            throw new NoAccessToTaskException();
+
+        if(expectedVersion != null && !expectedVersion.equals(state.getVersion()))
+            throw new TaskVersionMismatchException();
+
+        throw new TaskStatusConflictException("Задачу нельзя перевести из статуса " + state.getStatus() + " в статус " + status);
     }
 
+    @CacheEvict(value = "tasks", key = "#taskId")
     public void setExecutor(int taskId, int executorId, Principal principal) {
         Task task = taskRepository.findById(taskId).orElseThrow(TaskNotFoundException::new);
+        TaskStatisticsService.Key oldKey = TaskStatisticsService.Key.of(task);
 
         if(task.getAuthor().getEmail().equals(principal.getName())) {
             Person executor = personDetailsService.getPersonById(executorId);
+            publishPreviousState(List.of(taskId));
             task.setExecutor(executor);
         } else {
             throw new NoAccessToTaskException();
         }
 
         taskRepository.save(task);
+        publishEvent(TaskEventType.UPDATED, List.of(taskId));
+
+        TaskStatisticsService.Key newKey = TaskStatisticsService.Key.of(task);
+        AfterCommit.run(() -> statisticsService.taskReplaced(oldKey, newKey));
     }
 
-    public void addComment(int id, Comment comment) {
-        Task task = taskRepository.findById(id).orElseThrow(TaskNotFoundException::new);
+    // Задачи не загружаются и не блокируются: по прочитанным состояниям определяется, какие из них можно изменить,
+    // и статусы меняются одним UPDATE, который сам проверяет предыдущий статус и права
+    public Map<Integer, TaskUpdateOutcome> changeStatuses(List<Integer> ids, Status status, Principal principal) {
+        if(ids.isEmpty())
+            return new LinkedHashMap<>();
+
+        checkBulkUpdateSize(ids.size());
+
+        return changeStatuses(ids, findTaskStates(findByIds(ids)), status, getPersonId(principal));
+    }
+
+    // Рассматриваются только задачи, автором или исполнителем которых является пользователь
+    public Map<Integer, TaskUpdateOutcome> changeStatusesByFilters(Integer executorId, Integer authorId, Priority priority, Status filterStatus,
+                                                                   Status status, Principal principal) {
+        Integer personId = getPersonId(principal);
+
+        if(personId == null)
+            return new LinkedHashMap<>();
+
+        Specification<Task> tasks = getSpecification(executorId, authorId, priority, filterStatus)
+                .and(findByAuthorOrExecutorId(personId));
+
+        Map<Integer, TaskRepository.TaskState> states = findTaskStates(tasks);
+
+        return changeStatuses(states.keySet(), states, status, personId);
+    }
+
+    private Map<Integer, TaskUpdateOutcome> changeStatuses(Collection<Integer> ids, Map<Integer, TaskRepository.TaskState> states,
+                                                           Status status, Integer personId) {
+        Status previousStatus = status.getPreviousStatus();
+
+        Map<Integer, TaskUpdateOutcome> outcomes = new LinkedHashMap<>();
+        List<TaskRepository.TaskState> updated = new ArrayList<>();
+
+        for(Integer id : new LinkedHashSet<>(ids)) {
+            TaskRepository.TaskState state = states.get(id);
+
+            if(state == null) {
+                outcomes.put(id, TaskUpdateOutcome.NOT_FOUND);
+            } else if(!isAuthorOrExecutor(state, personId)) {
+                outcomes.put(id, TaskUpdateOutcome.NO_ACCESS);
+            } else if(state.getStatus() != previousStatus) {
+                outcomes.put(id, TaskUpdateOutcome.CONFLICT);
+            } else {
+                outcomes.put(id, TaskUpdateOutcome.UPDATED);
+                updated.add(state);
+            }
+        }
+
+        if(!updated.isEmpty()) {
+            List<Integer> updatedIds = updated.stream().map(TaskRepository.TaskState::getId).toList();
+            publishPreviousState(updatedIds);
+
+            if(taskRepository.updateStatusByIdIn(updatedIds, status, previousStatus, personId) != updatedIds.size())
+                updated = reclassifyUpdated(updated, outcomes, TaskUpdateOutcome.CONFLICT);
+
+            List<TaskRepository.TaskState> changed = updated;
+
+            publishEvent(TaskEventType.UPDATED, changed.stream().map(TaskRepository.TaskState::getId).toList());
+
+            AfterCommit.run(() -> {
+                Cache cache = cacheManager.getCache("tasks");
+
+                for(TaskRepository.TaskState state : changed) {
+                    if(cache != null) cache.evict(state.getId());
+                    TaskStatisticsService.Key oldKey = TaskStatisticsService.Key.of(state);
+                    statisticsService.taskReplaced(oldKey, oldKey.withStatus(status));
+                }
+            });
+        }
+
+        return outcomes;
+    }
+
+    public Map<Integer, TaskUpdateOutcome> setExecutors(List<Integer> ids, int executorId, Principal principal) {
+        if(ids.isEmpty())
+            return new LinkedHashMap<>();
+
+        checkBulkUpdateSize(ids.size());
+
+        Person executor = personDetailsService.getPersonById(executorId);
+
+        return setExecutors(ids, findTaskStates(findByIds(ids)), executor, getPersonId(principal));
+    }
+
+    // Рассматриваются только задачи, автором которых является пользователь
+    public Map<Integer, TaskUpdateOutcome> setExecutorsByFilters(Integer executorIdFilter, Integer authorId, Priority priority, Status status,
+                                                                 int executorId, Principal principal) {
+        Person executor = personDetailsService.getPersonById(executorId);
+        Integer personId = getPersonId(principal);
+
+        if(personId == null)
+            return new LinkedHashMap<>();
+
+        Specification<Task> tasks = getSpecification(executorIdFilter, authorId, priority, status)
+                .and(findByAuthorId(personId));
+
+        Map<Integer, TaskRepository.TaskState> states = findTaskStates(tasks);
+
+        return setExecutors(states.keySet(), states, executor, personId);
+    }
+
+    private Map<Integer, TaskUpdateOutcome> setExecutors(Collection<Integer> ids, Map<Integer, TaskRepository.TaskState> states,
+                                                         Person executor, Integer personId) {
+        Map<Integer, TaskUpdateOutcome> outcomes = new LinkedHashMap<>();
+        List<TaskRepository.TaskState> updated = new ArrayList<>();
+
+        for(Integer id : new LinkedHashSet<>(ids)) {
+            TaskRepository.TaskState state = states.get(id);
+
+            if(state == null) {
+                outcomes.put(id, TaskUpdateOutcome.NOT_FOUND);
+            } else if(state.getAuthorId().equals(personId)) {
+                outcomes.put(id, TaskUpdateOutcome.UPDATED);
+                updated.add(state);
+            } else {
+                outcomes.put(id, TaskUpdateOutcome.NO_ACCESS);
+            }
+        }
+
+        if(!updated.isEmpty()) {
+            List<Integer> updatedIds = updated.stream().map(TaskRepository.TaskState::getId).toList();
+            publishPreviousState(updatedIds);
+
+            if(taskRepository.updateExecutorByIdIn(updatedIds, executor, personId) != updatedIds.size())
+                updated = reclassifyUpdated(updated, outcomes, TaskUpdateOutcome.NO_ACCESS);
+
+            List<TaskRepository.TaskState> changed = updated;
+
+            publishEvent(TaskEventType.UPDATED, changed.stream().map(TaskRepository.TaskState::getId).toList());
+
+            AfterCommit.run(() -> {
+                Cache cache = cacheManager.getCache("tasks");
+
+                for(TaskRepository.TaskState state : changed) {
+                    if(cache != null) cache.evict(state.getId());
+                    TaskStatisticsService.Key oldKey = TaskStatisticsService.Key.of(state);
+                    statisticsService.taskReplaced(oldKey, oldKey.withExecutorId(executor.getId()));
+                }
+            });
+        }
+
+        return outcomes;
+    }
+
+    // Состояния прочитаны без блокировок, и между чтением и UPDATE задачу мог изменить или удалить другой запрос.
+    // Если UPDATE изменил не все задачи, они перечитываются одним запросом. В REPEATABLE READ повторное чтение видит
+    // тот же снимок и собственные изменения транзакции, поэтому выросшая версия означает, что задачу изменил этот UPDATE
+    private List<TaskRepository.TaskState> reclassifyUpdated(List<TaskRepository.TaskState> attempted,
+                                                             Map<Integer, TaskUpdateOutcome> outcomes,
+                                                             TaskUpdateOutcome notUpdatedOutcome) {
+        Map<Integer, TaskRepository.TaskState> current = new HashMap<>();
+
+        for(TaskRepository.TaskState state : taskRepository.findStatesByIdIn(attempted.stream().map(TaskRepository.TaskState::getId).toList()))
+            current.put(state.getId(), state);
+
+        List<TaskRepository.TaskState> updated = new ArrayList<>();
 
-        List<Comment> comments = task.getComments();
+        for(TaskRepository.TaskState state : attempted) {
+            TaskRepository.TaskState currentState = current.get(state.getId());
 
-        if(comments == null)
-            comments = new ArrayList<>();
+            if(currentState == null) {
+                outcomes.put(state.getId(), TaskUpdateOutcome.NOT_FOUND);
+            } else if(currentState.getVersion() > state.getVersion()) {
+                updated.add(state);
+            } else {
+                outcomes.put(state.getId(), notUpdatedOutcome);
+            }
+        }
+
+        return updated;
+    }
+
+    // Токен - id последнего учтённого события outbox. События отбираются по фильтрам в базе, поэтому чужие изменения
+    // не читаются. Задача попадает в ответ, если хотя бы одно её событие подходит под фильтры: она изменилась, стала
+    // подходить или перестала подходить под них. Без токена возвращается только текущий токен
+    @Transactional(readOnly = true)
+    public TaskChangesDTO getChangesSince(Long since, Integer executorId, Integer authorId, Priority priority, Status status) {
+        long maxId = taskEventRepository.findMaxSettledId(eventsSafetyLag);
+
+        if(since == null)
+            return new TaskChangesDTO(List.of(), List.of(), maxId, false);
+
+        if(since + 1 < taskEventRepository.findMinId())
+            throw new ChangesTokenExpiredException();
+
+        List<TaskEvent> events = taskEventRepository.findSettledAfter(since, maxId, executorId, authorId,
+                priority != null ? priority.name() : null, status != null ? status.name() : null, changesMaxEvents);
+
+        boolean hasMore = events.size() == changesMaxEvents;
+        long token = hasMore ? events.get(events.size() - 1).getId() : Math.max(since, maxId);
+
+        if(events.isEmpty())
+            return new TaskChangesDTO(List.of(), List.of(), token, false);
+
+        Set<Integer> taskIds = new LinkedHashSet<>();
+
+        for(TaskEvent event : events)
+            taskIds.add(event.getTaskId());
+
+        Specification<Task> changed = (root, query, criteriaBuilder) -> root.get("id").in(taskIds);
 
-        comment.setTask(task);
-        comments.add(comment);
+        List<ShowTaskDTO> updated = taskRepository.findAll(getSpecification(executorId, authorId, priority, status).and(changed),
+                        Sort.by("id"))
+                .stream()
+                .map(task -> converter.convertToShowTaskDTO(task, false))
+                .toList();
 
+        // Остальные задачи подходили под фильтры до изменения, но сейчас не подходят или удалены
+        for(ShowTaskDTO task : updated)
+            taskIds.remove(task.getId());
+
+        return new TaskChangesDTO(updated, new ArrayList<>(taskIds), token, hasMore);
+    }
+
+    // Задача не загружается: счётчик комментариев увеличивается UPDATE, по числу изменённых строк
+    // проверяется существование задачи, а комментарий вставляется со ссылкой на неё
+    @CacheEvict(value = "tasks", key = "#id")
+    public void addComment(int id, Comment comment) {
+        if(taskRepository.incrementCommentCount(id, 1) == 0)
+            throw new TaskNotFoundException();
+
+        comment.setTask(taskRepository.getReferenceById(id));
         commentService.save(comment);
-        taskRepository.save(task);
+        publishEvent(TaskEventType.COMMENTED, List.of(id));
+
+        AfterCommit.run(() -> searchIndex.indexComment(id, comment.getText()));
+    }
+
+    public void addComments(int id, List<Comment> comments) {
+        List<String> texts = comments.stream().map(Comment::getText).toList();
+
+        if(!appendComments(Map.of(id, texts)).isEmpty())
+            throw new TaskNotFoundException();
+    }
+
+    // Комментарии нескольких задач записываются одной транзакцией.
+    // Возвращает id задач, которых нет, их комментарии не записываются
+    public Set<Integer> appendComments(Map<Integer, List<String>> textsByTask) {
+        Set<Integer> missingTasks = new HashSet<>();
+
+        textsByTask.forEach((id, texts) -> {
+            if(taskRepository.incrementCommentCount(id, texts.size()) == 0)
+                missingTasks.add(id);
+            else
+                commentService.saveAll(id, texts);
+        });
+
+        publishEvent(TaskEventType.COMMENTED, textsByTask.keySet().stream()
+                .filter(id -> !missingTasks.contains(id))
+                .toList());
+
+        AfterCommit.run(() -> {
+            Cache cache = cacheManager.getCache("tasks");
+
+            textsByTask.forEach((id, texts) -> {
+                if(missingTasks.contains(id))
+                    return;
+
+                if(cache != null) cache.evict(id);
+                texts.forEach(text -> searchIndex.indexComment(id, text));
+            });
+        });
+
+        return missingTasks;
+    }
+
+    @Transactional(readOnly = true)
+    public void checkTaskExists(int id) {
+        if(!taskRepository.existsById(id))
+            throw new TaskNotFoundException();
+    }
+
+    // Счётчики в памяти, транзакция и соединение с базой не нужны
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TaskStatsDTO getStatistics() {
+        return statisticsService.getStatistics();
     }
 
-    public List<ShowTaskDTO> getTasksByFilters(Integer executorId, Integer authorId, Priority priority, Status status, Pageable pageable) {
+    public List<ShowTaskDTO> getTasksByFilters(Integer executorId, Integer authorId, Priority priority, Status status, Pageable pageable, boolean includeComments) {
         Specification<Task> tasks = getSpecification(executorId, authorId, priority, status);
 
         return taskRepository.findAll(tasks, pageable)
                 .get()
-                .map(converter::convertToShowTaskDTO)
+                .map(task -> converter.convertToShowTaskDTO(task, includeComments))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ShowTaskDTO> searchTasks(String query, Integer executorId, Integer authorId, Priority priority, Status status, int size, boolean includeComments) {
+        Specification<Task> filters = getSpecification(executorId, authorId, priority, status);
+
+        List<ShowTaskDTO> showTasks = new ArrayList<>(size);
+        Set<Integer> checkedIds = new HashSet<>();
+
+        // Индекс отдаёт только limit лучших результатов. Они проверяются фильтрами частями в порядке релевантности,
+        // и если страница не заполнилась, а результатов больше, limit удваивается
+        for(int limit = Math.max(size, searchBatchSize); ; limit = (int) Math.min(2L * limit, Integer.MAX_VALUE)) {
+            List<Integer> rankedIds = searchIndex.search(query, limit);
+            List<Integer> uncheckedIds = new ArrayList<>();
+
+            for(Integer id : rankedIds) {
+                if(checkedIds.add(id))
+                    uncheckedIds.add(id);
+            }
+
+            for(int from = 0; from < uncheckedIds.size() && showTasks.size() < size; from += searchBatchSize) {
+                List<Integer> candidateIds = uncheckedIds.subList(from, Math.min(from + searchBatchSize, uncheckedIds.size()));
+
+                Specification<Task> byIds = (root, criteriaQuery, criteriaBuilder) -> root.get("id").in(candidateIds);
+
+                Map<Integer, Task> foundTasks = new HashMap<>();
+                for(Task task : taskRepository.findAll(filters.and(byIds)))
+                    foundTasks.put(task.getId(), task);
+
+                for(Integer id : candidateIds) {
+                    if(showTasks.size() == size)
+                        break;
+
+                    Task task = foundTasks.get(id);
+                    if(task != null) showTasks.add(converter.convertToShowTaskDTO(task, includeComments));
+                }
+            }
+
+            if(showTasks.size() == size || rankedIds.size() < limit)
+                break;
+        }
+
+        return showTasks;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTaskFieldsByFilters(Integer executorId, Integer authorId, Priority priority, Status status, Pageable pageable, Set<TaskField> fields) {
+        Specification<Task> tasks = getSpecification(executorId, authorId, priority, status);
+
+        return taskRepository.findAllFields(tasks, fields, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTaskFields(int id, Set<TaskField> fields) {
+        Specification<Task> task = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("id"), id);
+
+        return taskRepository.findAllFields(task, fields, Pageable.unpaged())
+                .stream()
+                .findFirst()
+                .orElseThrow(TaskNotFoundException::new);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportTasksByFilters(Integer executorId, Integer authorId, Priority priority, Status status, Consumer<ShowTaskDTO> consumer) {
+        Specification<Task> tasks = getSpecification(executorId, authorId, priority, status);
+
+        try (Stream<Task> stream = taskRepository.streamAll(tasks)) {
+            Iterator<Task> iterator = stream.iterator();
+            int count = 0;
+
+            while (iterator.hasNext()) {
+                consumer.accept(converter.convertToShowTaskDTO(iterator.next(), false));
+
+                if(++count % exportClearInterval == 0)
+                    entityManager.clear();
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public TaskSliceDTO getTasksByFiltersAfter(Integer executorId, Integer authorId, Priority priority, Status status, String after, String sortBy, int size, boolean includeComments) {
+        Specification<Task> tasks = getSpecification(executorId, authorId, priority, status);
+        Sort sort = TaskCursor.getSort(sortBy);
+        KeysetScrollPosition position = TaskCursor.decode(after, sortBy);
+
+        Window<Task> window = taskRepository.findBy(tasks, query -> query
+                .sortBy(sort)
+                .limit(size)
+                .project("author", "executor")
+                .scroll(position));
+
+        List<ShowTaskDTO> showTasks = window.stream()
+                .map(task -> converter.convertToShowTaskDTO(task, includeComments))
                 .collect(Collectors.toList());
+
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? TaskCursor.encode(window.positionAt(window.size() - 1))
+                : null;
+
+        return new TaskSliceDTO(showTasks, nextCursor);
+    }
+
+    private void checkVersion(Task task, Integer expectedVersion) {
+        if(expectedVersion != null && !expectedVersion.equals(task.getVersion()))
+            throw new TaskVersionMismatchException();
+    }
+
+    // Событие outbox пишется в текущей транзакции, автор и исполнитель берутся из строки задачи
+    private void publishEvent(TaskEventType type, Collection<Integer> ids) {
+        if(!ids.isEmpty())
+            taskEventRepository.insertForTasks(ids, type.name());
+    }
+
+    // Состояние задач до изменения статуса, приоритета или исполнителя. По нему GET /task/changes и подписчики
+    // с фильтрами узнают, что задача перестала подходить под фильтры
+    private void publishPreviousState(Collection<Integer> ids) {
+        publishEvent(TaskEventType.UPDATED, ids);
+    }
+
+    // Пользователь из JWT уже содержит id, иначе он ищется по email
+    private Integer getPersonId(Principal principal) {
+        if(principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof PersonDetails personDetails
+                && personDetails.getPerson().getId() != null)
+            return personDetails.getPerson().getId();
+
+        return personDetailsService.findPersonByEmail(principal.getName())
+                .map(Person::getId)
+                .orElse(null);
+    }
+
+    private boolean isAuthorOrExecutor(TaskRepository.TaskState state, Integer personId) {
+        return personId != null
+                && (personId.equals(state.getAuthorId()) || personId.equals(state.getExecutorId()));
+    }
+
+    // Состояния задач читаются без блокировок, при большем числе задач, чем разрешено, запрос отклоняется
+    private Map<Integer, TaskRepository.TaskState> findTaskStates(Specification<Task> tasks) {
+        List<TaskRepository.TaskState> states = taskRepository.findStates(tasks, bulkMaxUpdateSize + 1);
+
+        checkBulkUpdateSize(states.size());
+
+        Map<Integer, TaskRepository.TaskState> statesById = new LinkedHashMap<>();
+
+        for(TaskRepository.TaskState state : states)
+            statesById.put(state.getId(), state);
+
+        return statesById;
+    }
+
+    // Размер пачки проверяется до проверки и преобразования задач, транзакция не нужна
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void checkBulkCreateSize(int size) {
+        if(size > bulkMaxSize)
+            throw new BulkUpdateTooLargeException("За один запрос можно создать не больше " + bulkMaxSize + " задач");
+    }
+
+    private void checkBulkUpdateSize(int size) {
+        if(size > bulkMaxUpdateSize)
+            throw new BulkUpdateTooLargeException("За один запрос можно изменить не больше " + bulkMaxUpdateSize + " задач");
     }
 
     private Specification<Task> getSpecification(Integer executorId, Integer authorId, Priority priority, Status status) {
@@ -162,6 +777,21 @@ public class TaskService {
                 .orElse((root, query, criteriaBuilder) -> criteriaBuilder.conjunction());
     }
 
+    private Specification<Task> findByIds(Collection<Integer> ids) {
+        return (root, query, criteriaBuilder) -> root.get("id").in(ids);
+    }
+
+    private Specification<Task> findByAuthorId(Integer personId) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(root.get("author").get("id"), personId);
+    }
+
+    private Specification<Task> findByAuthorOrExecutorId(Integer personId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.equal(root.get("author").get("id"), personId),
+                criteriaBuilder.equal(root.get("executor").get("id"), personId));
+    }
+
     private Specification<Task> findByExecutor(Person executor) {
         return (root, query, criteriaBuilder) ->
             criteriaBuilder.equal(root.get("executor").get("id"), executor.getId());
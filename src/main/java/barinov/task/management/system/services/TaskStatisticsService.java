@@ -0,0 +1,207 @@
+package barinov.task.management.system.services;
+
+import barinov.task.management.system.dto.TaskStatsDTO;
+import barinov.task.management.system.models.Priority;
+import barinov.task.management.system.models.Status;
+import barinov.task.management.system.models.Task;
+import barinov.task.management.system.repositories.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики задач по сочетаниям (исполнитель, статус, приоритет) и (автор, статус, приоритет).
+ * Количества по одному измерению выводятся из них при построении снимка, снимок отдаётся без вычислений
+ * и перестраивается не чаще task.stats.snapshot-max-age, если счётчики изменились.
+ * Счётчики обновляются после коммита каждого изменения задач и периодически сверяются с базой запросами с GROUP BY.
+ */
+@Service
+public class TaskStatisticsService {
+
+    private static final String NO_EXECUTOR = "0";
+
+    private final TaskRepository taskRepository;
+
+    private final long snapshotMaxAgeNanos;
+
+    private volatile Counters counters = new Counters();
+
+    private volatile Snapshot snapshot = new Snapshot(Snapshot.EMPTY, null, 0, 0);
+
+    @Autowired
+    public TaskStatisticsService(TaskRepository taskRepository,
+                                 @Value("${task.stats.snapshot-max-age}") long snapshotMaxAge) {
+        this.taskRepository = taskRepository;
+        this.snapshotMaxAgeNanos = TimeUnit.MILLISECONDS.toNanos(snapshotMaxAge);
+    }
+
+    public void taskAdded(Key key) {
+        counters.add(key, 1);
+    }
+
+    public void taskRemoved(Key key) {
+        counters.add(key, -1);
+    }
+
+    public void taskReplaced(Key oldKey, Key newKey) {
+        Counters current = counters;
+        current.add(oldKey, -1);
+        current.add(newKey, 1);
+    }
+
+    public TaskStatsDTO getStatistics() {
+        Counters current = counters;
+        Snapshot built = snapshot;
+
+        if(built.counters == current && built.changes == current.changes.get())
+            return built.statistics;
+
+        if(System.nanoTime() - built.builtAt < snapshotMaxAgeNanos && built.counters == current)
+            return built.statistics;
+
+        synchronized (this) {
+            if(snapshot != built)
+                return snapshot.statistics;
+
+            snapshot = buildSnapshot(current);
+            return snapshot.statistics;
+        }
+    }
+
+    // Изменения, пришедшие во время сверки, могут потеряться или учесться дважды;
+    // расхождение исправит следующая сверка.
+    @Scheduled(fixedDelayString = "${task.stats.reconcile-interval}")
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        Counters reconciled = new Counters();
+
+        for(Object[] group : taskRepository.countGroupByExecutorStatusPriority())
+            increment(reconciled.byExecutor, new Group(executorKey((Integer) group[0]), (Status) group[1], (Priority) group[2]), (Long) group[3]);
+
+        for(Object[] group : taskRepository.countGroupByAuthorStatusPriority())
+            increment(reconciled.byAuthor, new Group(group[0].toString(), (Status) group[1], (Priority) group[2]), (Long) group[3]);
+
+        counters = reconciled;
+    }
+
+    private static Snapshot buildSnapshot(Counters current) {
+        // Счётчик изменений читается до обхода: изменение во время обхода перестроит снимок при следующем запросе
+        long changes = current.changes.get();
+
+        Map<String, Long> byStatus = new TreeMap<>();
+        Map<String, Long> byPriority = new TreeMap<>();
+        Map<String, Long> byExecutor = new TreeMap<>();
+        Map<String, Long> byAuthor = new TreeMap<>();
+        Map<String, Map<String, Map<String, Long>>> byExecutorStatusPriority = new TreeMap<>();
+
+        for(Map.Entry<Group, LongAdder> entry : current.byExecutor.entrySet()) {
+            long count = entry.getValue().sum();
+
+            if(count == 0)
+                continue;
+
+            Group group = entry.getKey();
+            byStatus.merge(group.status.toString(), count, Long::sum);
+            byPriority.merge(group.priority.toString(), count, Long::sum);
+            byExecutor.merge(group.personId, count, Long::sum);
+            byExecutorStatusPriority.computeIfAbsent(group.personId, k -> new TreeMap<>())
+                    .computeIfAbsent(group.status.toString(), k -> new TreeMap<>())
+                    .merge(group.priority.toString(), count, Long::sum);
+        }
+
+        for(Map.Entry<Group, LongAdder> entry : current.byAuthor.entrySet()) {
+            long count = entry.getValue().sum();
+
+            if(count != 0)
+                byAuthor.merge(entry.getKey().personId, count, Long::sum);
+        }
+
+        return new Snapshot(new TaskStatsDTO(byStatus, byPriority, byAuthor, byExecutor, byExecutorStatusPriority),
+                current, changes, System.nanoTime());
+    }
+
+    private static void increment(Map<Group, LongAdder> counter, Group group, long delta) {
+        counter.computeIfAbsent(group, k -> new LongAdder()).add(delta);
+    }
+
+    private static String executorKey(Integer executorId) {
+        return executorId != null ? executorId.toString() : NO_EXECUTOR;
+    }
+
+    private static class Counters {
+        private final Map<Group, LongAdder> byExecutor = new ConcurrentHashMap<>();
+        private final Map<Group, LongAdder> byAuthor = new ConcurrentHashMap<>();
+        private final AtomicLong changes = new AtomicLong();
+
+        private void add(Key key, long delta) {
+            increment(byExecutor, new Group(key.executorId, key.status, key.priority), delta);
+            increment(byAuthor, new Group(key.authorId, key.status, key.priority), delta);
+            changes.incrementAndGet();
+        }
+    }
+
+    private record Group(String personId, Status status, Priority priority) {
+    }
+
+    private static class Snapshot {
+        private static final TaskStatsDTO EMPTY = new TaskStatsDTO(Collections.emptyMap(), Collections.emptyMap(),
+                Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+        private final TaskStatsDTO statistics;
+        private final Counters counters;
+        private final long changes;
+        private final long builtAt;
+
+        private Snapshot(TaskStatsDTO statistics, Counters counters, long changes, long builtAt) {
+            this.statistics = statistics;
+            this.counters = counters;
+            this.changes = changes;
+            this.builtAt = builtAt;
+        }
+    }
+
+    /**
+     * Значения задачи, по которым ведутся счётчики, на момент до или после изменения.
+     */
+    public static class Key {
+        private final Status status;
+        private final Priority priority;
+        private final String authorId;
+        private final String executorId;
+
+        private Key(Status status, Priority priority, String authorId, String executorId) {
+            this.status = status;
+            this.priority = priority;
+            this.authorId = authorId;
+            this.executorId = executorId;
+        }
+
+        public static Key of(Task task) {
+            return new Key(task.getStatus(), task.getPriority(), task.getAuthor().getId().toString(),
+                    executorKey(task.getExecutor() != null ? task.getExecutor().getId() : null));
+        }
+
+        public static Key of(TaskRepository.TaskState state) {
+            return new Key(state.getStatus(), state.getPriority(), state.getAuthorId().toString(),
+                    executorKey(state.getExecutorId()));
+        }
+
+        public Key withStatus(Status status) {
+            return new Key(status, priority, authorId, executorId);
+        }
+
+        public Key withExecutorId(Integer executorId) {
+            return new Key(status, priority, authorId, executorKey(executorId));
+        }
+    }
+}
@@ -4,24 +4,47 @@ import barinov.task.management.system.dto.CommentDTO;
 import barinov.task.management.system.dto.ShowCommentDTO;
 import barinov.task.management.system.models.Comment;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ConverterCommentAndCommentDTOs {
     private final ModelMapper modelMapper;
 
+    @Value("${mapper.model-mapper.enabled}")
+    private boolean modelMapperEnabled;
+
     public ConverterCommentAndCommentDTOs(ModelMapper modelMapper) {
         this.modelMapper = modelMapper;
     }
     public Comment convertToComment(CommentDTO commentDTO) {
-        return modelMapper.map(commentDTO, Comment.class);
+        if(modelMapperEnabled)
+            return modelMapper.map(commentDTO, Comment.class);
+
+        Comment comment = new Comment();
+        comment.setText(commentDTO.getText());
+
+        return comment;
     }
 
     public CommentDTO convertToCommentDTO(Comment comment) {
-        return modelMapper.map(comment, CommentDTO.class);
+        if(modelMapperEnabled)
+            return modelMapper.map(comment, CommentDTO.class);
+
+        CommentDTO commentDTO = new CommentDTO();
+        commentDTO.setText(comment.getText());
+
+        return commentDTO;
     }
 
     public ShowCommentDTO convertToShowCommentDTO(Comment comment) {
-        return modelMapper.map(comment, ShowCommentDTO.class);
+        if(modelMapperEnabled)
+            return modelMapper.map(comment, ShowCommentDTO.class);
+
+        ShowCommentDTO showCommentDTO = new ShowCommentDTO();
+        showCommentDTO.setId(comment.getId());
+        showCommentDTO.setText(comment.getText());
+
+        return showCommentDTO;
     }
 }
@@ -1,15 +1,24 @@
 package barinov.task.management.system.util;
 
+import barinov.task.management.system.dto.ShowCommentDTO;
 import barinov.task.management.system.dto.ShowTaskDTO;
 import barinov.task.management.system.dto.TaskDTO;
 import barinov.task.management.system.models.Comment;
+import barinov.task.management.system.models.Person;
+import barinov.task.management.system.models.Priority;
+import barinov.task.management.system.models.Status;
 import barinov.task.management.system.models.Task;
 import barinov.task.management.system.services.CommentService;
 import barinov.task.management.system.services.PersonDetailsService;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 public class ConverterTaskAndTaskDTOs {
@@ -18,29 +27,83 @@ public class ConverterTaskAndTaskDTOs {
     private final CommentService commentService;
 
     private final ConverterCommentAndCommentDTOs converterComment;
+    private final StageMetrics stageMetrics;
 
+    @Value("${mapper.model-mapper.enabled}")
+    private boolean modelMapperEnabled;
 
-    public ConverterTaskAndTaskDTOs(ModelMapper modelMapper, PersonDetailsService personDetailsService, CommentService commentService, ConverterCommentAndCommentDTOs converterComment) {
+    public ConverterTaskAndTaskDTOs(ModelMapper modelMapper, PersonDetailsService personDetailsService, CommentService commentService, ConverterCommentAndCommentDTOs converterComment, StageMetrics stageMetrics) {
         this.modelMapper = modelMapper;
         this.personDetailsService = personDetailsService;
         this.commentService = commentService;
         this.converterComment = converterComment;
+        this.stageMetrics = stageMetrics;
     }
 
     public Task convertToTask(TaskDTO taskDTO) {
-        Task task = modelMapper.map(taskDTO, Task.class);
+        Person executor = null;
 
-        if (taskDTO.getExecutorId() > 0) {
-            task.setExecutor(personDetailsService.getPersonById(taskDTO.getExecutorId()));
+        if (taskDTO.getExecutorId() > 0)
+            executor = personDetailsService.getPersonById(taskDTO.getExecutorId());
+
+        return convertToTask(taskDTO, executor);
+    }
+
+    // Исполнители всех задач загружаются одним запросом
+    public List<Task> convertToTasks(List<TaskDTO> taskDTOs) {
+        Set<Integer> executorIds = new HashSet<>();
+
+        for(TaskDTO taskDTO : taskDTOs) {
+            if(taskDTO.getExecutorId() > 0)
+                executorIds.add(taskDTO.getExecutorId());
+        }
+
+        Map<Integer, Person> executors = personDetailsService.getPeopleByIds(executorIds);
+
+        List<Task> tasks = new ArrayList<>(taskDTOs.size());
+
+        for(TaskDTO taskDTO : taskDTOs)
+            tasks.add(convertToTask(taskDTO, executors.get(taskDTO.getExecutorId())));
+
+        return tasks;
+    }
+
+    private Task convertToTask(TaskDTO taskDTO, Person executor) {
+        return stageMetrics.record(StageMetrics.Stage.MAPPING, () -> mapToTask(taskDTO, executor));
+    }
+
+    private Task mapToTask(TaskDTO taskDTO, Person executor) {
+        Task task;
+
+        if(modelMapperEnabled) {
+            task = modelMapper.map(taskDTO, Task.class);
         } else {
-            task.setExecutor(null);
+            task = new Task();
+            task.setDescription(taskDTO.getDescription());
+            task.setStatus(taskDTO.getStatus() != null ? Status.valueOf(taskDTO.getStatus()) : null);
+            task.setPriority(taskDTO.getPriority() != null ? Priority.valueOf(taskDTO.getPriority()) : null);
         }
 
+        task.setExecutor(executor);
+
         return task;
     }
 
     public TaskDTO convertToTaskDTO(Task task) {
-        TaskDTO taskDTO = modelMapper.map(task, TaskDTO.class);
+        return stageMetrics.record(StageMetrics.Stage.MAPPING, () -> mapToTaskDTO(task));
+    }
+
+    private TaskDTO mapToTaskDTO(Task task) {
+        TaskDTO taskDTO;
+
+        if(modelMapperEnabled) {
+            taskDTO = modelMapper.map(task, TaskDTO.class);
+        } else {
+            taskDTO = new TaskDTO();
+            taskDTO.setDescription(task.getDescription());
+            taskDTO.setStatus(task.getStatus() != null ? task.getStatus().toString() : null);
+            taskDTO.setPriority(task.getPriority() != null ? task.getPriority().toString() : null);
+        }
 
         if (task.getExecutor() != null) {
             taskDTO.setExecutorId(task.getExecutor().getId());
@@ -52,18 +115,41 @@ public class ConverterTaskAndTaskDTOs {
     }
 
     public ShowTaskDTO convertToShowTaskDTO(Task task) {
-        ShowTaskDTO showTaskDTO = modelMapper.map(task, ShowTaskDTO.class);
+        return convertToShowTaskDTO(task, true);
+    }
+
+    public ShowTaskDTO convertToShowTaskDTO(Task task, boolean withComments) {
+        return stageMetrics.record(StageMetrics.Stage.MAPPING, () -> mapToShowTaskDTO(task, withComments));
+    }
+
+    private ShowTaskDTO mapToShowTaskDTO(Task task, boolean withComments) {
+        ShowTaskDTO showTaskDTO;
+
+        if(modelMapperEnabled) {
+            showTaskDTO = modelMapper.map(task, ShowTaskDTO.class);
+        } else {
+            showTaskDTO = new ShowTaskDTO();
+            showTaskDTO.setId(task.getId());
+            showTaskDTO.setDescription(task.getDescription());
+            showTaskDTO.setStatus(task.getStatus() != null ? task.getStatus().toString() : null);
+            showTaskDTO.setPriority(task.getPriority() != null ? task.getPriority().toString() : null);
+        }
+
         showTaskDTO.setAuthorId(task.getAuthor().getId());
+        showTaskDTO.setCommentCount(task.getCommentCount() != null ? task.getCommentCount() : 0);
 
         if (task.getExecutor() != null) {
             showTaskDTO.setExecutorId(task.getExecutor().getId());
         } else {
             showTaskDTO.setExecutorId(0);
         }
-        if(task.getComments() != null) {
-            showTaskDTO.setComments(task.getComments().stream()
-                    .map(converterComment::convertToShowCommentDTO)
-                    .collect(Collectors.toList()));
+        if(withComments && task.getComments() != null) {
+            List<ShowCommentDTO> comments = new ArrayList<>(task.getComments().size());
+
+            for(Comment comment : task.getComments())
+                comments.add(converterComment.convertToShowCommentDTO(comment));
+
+            showTaskDTO.setComments(comments);
         }
 
         return showTaskDTO;
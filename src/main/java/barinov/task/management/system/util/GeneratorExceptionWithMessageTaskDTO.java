@@ -3,6 +3,7 @@ package barinov.task.management.system.util;
 import barinov.task.management.system.dto.TaskDTO;
 import barinov.task.management.system.exceptions.TaskNotCreatedException;
 import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
@@ -28,4 +29,31 @@ public class GeneratorExceptionWithMessageTaskDTO {
             throw new TaskNotCreatedException(errorMsg.toString());
         }
     }
+
+    // Проверяет все задачи сразу, в сообщении ошибки указывается номер задачи в списке
+    public void validAllOrGenerateException(List<TaskDTO> taskDTOs, TaskDTOValidator taskDTOValidator) {
+        StringBuilder errorMsg = new StringBuilder();
+
+        for(int i = 0; i < taskDTOs.size(); i++) {
+            TaskDTO taskDTO = taskDTOs.get(i);
+
+            if(taskDTO == null) {
+                errorMsg.append('[').append(i).append("] - задача не может быть пустой;");
+                continue;
+            }
+
+            BindingResult bindingResult = new BeanPropertyBindingResult(taskDTO, "taskDTO");
+            taskDTOValidator.validate(taskDTO, bindingResult);
+
+            for(FieldError fieldError : bindingResult.getFieldErrors()) {
+                errorMsg.append('[').append(i).append("] ")
+                        .append(fieldError.getField())
+                        .append(" - ").append(fieldError.getDefaultMessage())
+                        .append(';');
+            }
+        }
+
+        if(!errorMsg.isEmpty())
+            throw new TaskNotCreatedException(errorMsg.toString());
+    }
 }
@@ -0,0 +1,169 @@
+package barinov.task.management.system.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Трассировка одного запроса: дерево этапов и выполненные SQL-запросы.
+ * Хранится в ThreadLocal потока запроса. Если трассировка не начата,
+ * статические методы ничего не делают, кроме чтения ThreadLocal.
+ */
+public class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private static final int MAX_SQL_LENGTH = 200;
+
+    private final Span root;
+    private Span current;
+    private int statementCount;
+
+    private RequestTrace(String name) {
+        this.root = new Span(name, null, null);
+        this.current = root;
+    }
+
+    public static RequestTrace begin(String name) {
+        RequestTrace trace = new RequestTrace(name);
+        CURRENT.set(trace);
+
+        return trace;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static Span openSpan(String name) {
+        RequestTrace trace = CURRENT.get();
+
+        if(trace == null)
+            return null;
+
+        Span span = new Span(name, null, trace.current);
+        trace.current.children.add(span);
+        trace.current = span;
+
+        return span;
+    }
+
+    public static void closeSpan(Span span) {
+        if(span == null)
+            return;
+
+        span.end = System.nanoTime();
+
+        RequestTrace trace = CURRENT.get();
+
+        if(trace != null && trace.current == span)
+            trace.current = span.parent;
+    }
+
+    // SQL-запрос не становится текущим этапом, время его выполнения записывает closeSpan
+    public static Span openStatement(String sql) {
+        RequestTrace trace = CURRENT.get();
+
+        if(trace == null)
+            return null;
+
+        trace.statementCount++;
+
+        Span statement = new Span("sql", sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql, trace.current);
+        trace.current.children.add(statement);
+
+        return statement;
+    }
+
+    public void finish() {
+        root.end = System.nanoTime();
+    }
+
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(root.getDuration());
+    }
+
+    // Значение заголовка Server-Timing: общее время, суммарное время каждого этапа, время и число SQL-запросов
+    public String toServerTiming() {
+        Map<String, Long> durations = new LinkedHashMap<>();
+        sumDurations(root, durations);
+
+        StringBuilder header = new StringBuilder("total;dur=").append(toMillis(root.getDuration()));
+
+        durations.forEach((name, duration) -> header.append(", ").append(name).append(";dur=").append(toMillis(duration)));
+
+        header.append(", db;dur=").append(toMillis(sumStatementDurations(root)))
+                .append(";desc=\"").append(statementCount).append(" statements\"");
+
+        return header.toString();
+    }
+
+    public String toTree() {
+        StringBuilder tree = new StringBuilder();
+        appendTree(root, 0, tree);
+
+        return tree.toString();
+    }
+
+    private void sumDurations(Span span, Map<String, Long> durations) {
+        for(Span child : span.children) {
+            if(child.detail != null)
+                continue;
+
+            durations.merge(child.name, child.getDuration(), Long::sum);
+            sumDurations(child, durations);
+        }
+    }
+
+    private long sumStatementDurations(Span span) {
+        long duration = 0;
+
+        for(Span child : span.children)
+            duration += child.detail != null ? child.getDuration() : sumStatementDurations(child);
+
+        return duration;
+    }
+
+    private void appendTree(Span span, int depth, StringBuilder tree) {
+        tree.append("  ".repeat(depth)).append(span.name);
+
+        if(span.detail != null)
+            tree.append(": ").append(span.detail).append(" (").append(toMillis(span.getDuration())).append(" мс)");
+        else
+            tree.append(' ').append(toMillis(span.getDuration())).append(" мс");
+
+        if(span == root)
+            tree.append(", SQL-запросов: ").append(statementCount);
+
+        tree.append('\n');
+
+        for(Span child : span.children)
+            appendTree(child, depth + 1, tree);
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    public static class Span {
+        private final String name;
+        private final String detail;
+        private final Span parent;
+        private final List<Span> children = new ArrayList<>();
+        private final long start = System.nanoTime();
+        private long end;
+
+        private Span(String name, String detail, Span parent) {
+            this.name = name;
+            this.detail = detail;
+            this.parent = parent;
+        }
+
+        private long getDuration() {
+            return (end != 0 ? end : System.nanoTime()) - start;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package barinov.task.management.system.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Таймеры этапов обработки запроса, публикуются как task.stage с тегом stage.
+ * Таймеры создаются заранее, поэтому запись не ищет их в реестре.
+ * Время вызовов репозиториев пишет сам Spring Data в spring.data.repository.invocations.
+ * При включённой трассировке запроса каждый этап также попадает в неё как отдельный span.
+ */
+@Component
+public class StageMetrics {
+
+    public enum Stage {
+        JWT("jwt"),
+        PRINCIPAL("principal"),
+        MAPPING("mapping"),
+        SERIALIZATION("serialization");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+    @Autowired
+    public StageMetrics(MeterRegistry meterRegistry) {
+        for(Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("task.stage")
+                    .tag("stage", stage.getName())
+                    .register(meterRegistry));
+        }
+    }
+
+    public <T> T record(Stage stage, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        RequestTrace.Span span = RequestTrace.openSpan(stage.getName());
+
+        try {
+            return supplier.get();
+        } finally {
+            RequestTrace.closeSpan(span);
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,79 @@
+package barinov.task.management.system.util;
+
+import barinov.task.management.system.exceptions.IncorrectCursorException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Непрозрачный курсор для постраничного вывода задач по ключу (id) или (priorityRank, id).
+ * Приоритеты идут в порядке LOW, MEDDLE, HIGH, а не по алфавиту строк в колонке priority.
+ */
+public class TaskCursor {
+
+    public static final String SORT_BY_ID = "id";
+    public static final String SORT_BY_PRIORITY = "priority";
+
+    private TaskCursor() {
+    }
+
+    public static Sort getSort(String sortBy) {
+        return switch (sortBy) {
+            case SORT_BY_ID -> Sort.by(Sort.Direction.ASC, "id");
+            case SORT_BY_PRIORITY -> Sort.by(Sort.Direction.ASC, "priorityRank", "id");
+            default -> throw new IncorrectCursorException();
+        };
+    }
+
+    public static String encode(ScrollPosition position) {
+        KeysetScrollPosition keyset = (KeysetScrollPosition) position;
+        StringBuilder cursor = new StringBuilder();
+
+        for(Map.Entry<String, Object> key : keyset.getKeys().entrySet()) {
+            if(!cursor.isEmpty())
+                cursor.append(';');
+
+            cursor.append(key.getKey()).append('=').append(key.getValue());
+        }
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetScrollPosition decode(String cursor, String sortBy) {
+        if(cursor == null)
+            return ScrollPosition.keyset();
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            for(String key : decoded.split(";")) {
+                String[] nameAndValue = key.split("=", 2);
+
+                switch (nameAndValue[0]) {
+                    case "id" -> keys.put("id", Integer.valueOf(nameAndValue[1]));
+                    case "priorityRank" -> keys.put("priorityRank", Integer.valueOf(nameAndValue[1]));
+                    default -> throw new IncorrectCursorException();
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IncorrectCursorException();
+        }
+
+        boolean expectedKeys = SORT_BY_PRIORITY.equals(sortBy)
+                ? keys.size() == 2 && keys.containsKey("priorityRank") && keys.containsKey("id")
+                : keys.size() == 1 && keys.containsKey("id");
+
+        if(!expectedKeys)
+            throw new IncorrectCursorException();
+
+        return ScrollPosition.forward(keys);
+    }
+}
@@ -0,0 +1,61 @@
+package barinov.task.management.system.util;
+
+import barinov.task.management.system.exceptions.TaskVersionMismatchException;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class TaskETag {
+
+    private TaskETag() {
+    }
+
+    public static String toETag(int version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * ETag отдельного представления задачи: версия и выбранное представление, например "3-comments".
+     * Так 304 возвращается только для того же представления, которое сохранил клиент.
+     */
+    public static String toETag(int version, String representation) {
+        if(representation == null)
+            return toETag(version);
+
+        return "\"" + version + "-" + representation + "\"";
+    }
+
+    public static String toETag(int version, Set<TaskField> fields) {
+        return toETag(version, "fields:" + fields.stream()
+                .map(TaskField::getName)
+                .collect(Collectors.joining(",")));
+    }
+
+    /**
+     * Возвращает версию задачи из заголовка If-Match или null, если проверка версии не нужна.
+     * If-Match сравнивает ETag строго (RFC 9110), поэтому слабый ETag W/"..." не совпадает ни с одной версией.
+     */
+    public static Integer parseVersion(String ifMatch) {
+        if(ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*"))
+            return null;
+
+        String eTag = ifMatch.trim();
+
+        if(eTag.startsWith("W/"))
+            throw new TaskVersionMismatchException();
+
+        if(eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\""))
+            eTag = eTag.substring(1, eTag.length() - 1);
+
+        int representationStart = eTag.indexOf('-');
+
+        if(representationStart >= 0)
+            eTag = eTag.substring(0, representationStart);
+
+        try {
+            return Integer.valueOf(eTag);
+        } catch (NumberFormatException e) {
+            throw new TaskVersionMismatchException();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package barinov.task.management.system.util;
+
+import barinov.task.management.system.exceptions.IncorrectFieldsException;
+import barinov.task.management.system.models.Task;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Поля ShowTaskDTO, которые можно запросить параметром fields, и колонки, из которых они читаются.
+ */
+public enum TaskField {
+    ID("id"),
+    DESCRIPTION("description"),
+    STATUS("status"),
+    PRIORITY("priority"),
+    AUTHOR_ID("authorId"),
+    EXECUTOR_ID("executorId"),
+    COMMENT_COUNT("commentCount"),
+    COMMENTS("comments");
+
+    private final String name;
+
+    TaskField(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isColumn() {
+        return this != COMMENTS;
+    }
+
+    public Path<?> getPath(Root<Task> root) {
+        return switch (this) {
+            case ID -> root.get("id");
+            case DESCRIPTION -> root.get("description");
+            case STATUS -> root.get("status");
+            case PRIORITY -> root.get("priority");
+            case AUTHOR_ID -> root.get("author").get("id");
+            case EXECUTOR_ID -> root.get("executor").get("id");
+            case COMMENT_COUNT -> root.get("commentCount");
+            case COMMENTS -> throw new IllegalStateException("Комментарии не являются колонкой задачи");
+        };
+    }
+
+    public Object toValue(Object column) {
+        return switch (this) {
+            case STATUS, PRIORITY -> column != null ? column.toString() : null;
+            case EXECUTOR_ID -> column != null ? column : 0;
+            default -> column;
+        };
+    }
+
+    public static Set<TaskField> parse(String fields) {
+        Set<TaskField> result = EnumSet.noneOf(TaskField.class);
+
+        for(String name : fields.split(",")) {
+            String trimmed = name.trim();
+
+            TaskField field = Arrays.stream(values())
+                    .filter(value -> value.name.equals(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new IncorrectFieldsException("Можно запросить только следующие поля: " + valuesToString()));
+
+            result.add(field);
+        }
+
+        return result;
+    }
+
+    private static String valuesToString() {
+        return Arrays.stream(values())
+                .map(TaskField::getName)
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,86 @@
+package barinov.task.management.system.util;
+
+import barinov.task.management.system.dto.TaskDTO;
+import barinov.task.management.system.exceptions.NotCorrectJsonPatch;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Применяет JSON Patch к TaskDTO. Операции add, replace и remove над полями TaskDTO
+ * записываются прямо в поля без преобразования в JsonNode и обратно,
+ * остальные операции (move, copy, test) применяются библиотекой json-patch.
+ */
+@Component
+public class TaskPatchApplier {
+
+    private static final Set<String> SIMPLE_OPERATIONS = Set.of("add", "replace", "remove");
+    private static final Set<String> PATHS = Set.of("/description", "/status", "/priority", "/executorId");
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public TaskPatchApplier(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public TaskDTO apply(JsonPatch jsonPatch, TaskDTO target) {
+        JsonNode operations = objectMapper.valueToTree(jsonPatch);
+
+        try {
+            if(!isSimple(operations)) {
+                JsonNode patched = jsonPatch.apply(objectMapper.convertValue(target, JsonNode.class));
+                return objectMapper.treeToValue(patched, TaskDTO.class);
+            }
+        } catch (JsonPatchException | JsonProcessingException e) {
+            throw new NotCorrectJsonPatch();
+        }
+
+        for(JsonNode operation : operations) {
+            boolean remove = operation.get("op").asText().equals("remove");
+            JsonNode value = operation.get("value");
+
+            switch (operation.get("path").asText()) {
+                case "/description" -> target.setDescription(remove ? null : toText(value));
+                case "/status" -> target.setStatus(remove ? null : toText(value));
+                case "/priority" -> target.setPriority(remove ? null : toText(value));
+                case "/executorId" -> target.setExecutorId(remove ? 0 : toInt(value));
+            }
+        }
+
+        return target;
+    }
+
+    private boolean isSimple(JsonNode operations) {
+        for(JsonNode operation : operations) {
+            if(!SIMPLE_OPERATIONS.contains(operation.path("op").asText())
+                    || !PATHS.contains(operation.path("path").asText()))
+                return false;
+        }
+
+        return true;
+    }
+
+    private String toText(JsonNode value) {
+        if(value == null || value.isNull())
+            return null;
+
+        if(!value.isTextual())
+            throw new NotCorrectJsonPatch();
+
+        return value.asText();
+    }
+
+    private int toInt(JsonNode value) {
+        if(value == null || !value.isIntegralNumber() || !value.canConvertToInt())
+            throw new NotCorrectJsonPatch();
+
+        return value.asInt();
+    }
+}
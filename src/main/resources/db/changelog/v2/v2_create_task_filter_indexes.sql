@@ -0,0 +1,11 @@
+create index task_author_status_priority_idx
+    on task (author_id, status, priority, id);
+
+create index task_executor_status_priority_idx
+    on task (executor_id, status, priority, id);
+
+create index task_status_priority_idx
+    on task (status, priority, id);
+
+create index task_priority_idx
+    on task (priority, id);
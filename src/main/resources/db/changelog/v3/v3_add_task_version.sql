@@ -0,0 +1,2 @@
+alter table task
+    add column version int not null default 0;
@@ -0,0 +1,5 @@
+alter table task
+    add column comment_count int not null default 0;
+
+update task
+set comment_count = (select count(*) from comment where comment.task_id = task.id);
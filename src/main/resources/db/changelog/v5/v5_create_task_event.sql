@@ -0,0 +1,12 @@
+create table if not exists task_event
+(
+    id          bigint auto_increment
+        primary key,
+    task_id     int          not null,
+    type        varchar(20)  not null,
+    author_id   int          null,
+    executor_id int          null,
+    created_at  timestamp(3) not null default current_timestamp(3)
+);
+
+create index task_event_created_at_index on task_event (created_at);
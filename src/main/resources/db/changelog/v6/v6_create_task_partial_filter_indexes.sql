@@ -0,0 +1,24 @@
+-- Индекс из v2 отдаёт задачи в порядке id, только если все столбцы перед id заданы равенством.
+-- Для фильтров, где задана только часть столбцов, нужны свои индексы, иначе MySQL сортирует filesort.
+-- Индексы из v2 могут обслуживать внешние ключи, и MySQL удаляет автоматические индексы author_id и executor_id,
+-- поэтому фильтры только по автору или исполнителю тоже получают отдельные индексы.
+create index task_author_idx
+    on task (author_id, id);
+
+create index task_author_status_idx
+    on task (author_id, status, id);
+
+create index task_author_priority_idx
+    on task (author_id, priority, id);
+
+create index task_executor_idx
+    on task (executor_id, id);
+
+create index task_executor_status_idx
+    on task (executor_id, status, id);
+
+create index task_executor_priority_idx
+    on task (executor_id, priority, id);
+
+create index task_status_idx
+    on task (status, id);
@@ -0,0 +1,7 @@
+-- priority хранится строкой и сортируется по алфавиту (HIGH, LOW, MEDDLE).
+-- Вычисляемая колонка задаёт порядок значений Priority, индекс по ней отдаёт задачи в порядке (priority_rank, id).
+alter table task
+    add column priority_rank tinyint as (case priority when 'LOW' then 0 when 'MEDDLE' then 1 when 'HIGH' then 2 end) virtual;
+
+create index task_priority_rank_idx
+    on task (priority_rank);
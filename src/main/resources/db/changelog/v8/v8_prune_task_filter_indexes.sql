@@ -0,0 +1,23 @@
+-- Индексы из v2 и v6 перекрывали друг друга, а шесть из них содержали status, и каждая смена статуса
+-- переписывала их все. Остаются индексы внешних ключей и priority_rank из v7:
+-- InnoDB дописывает id в конец вторичного индекса сам, поэтому (author_id) уже отдаёт задачи автора в порядке id,
+-- status и priority пропускают мало строк и проверяются по строкам индекса или первичного ключа.
+-- Новые индексы создаются до удаления старых, чтобы внешним ключам всегда хватало индекса.
+create index task_author_fk_idx
+    on task (author_id);
+
+create index task_executor_fk_idx
+    on task (executor_id);
+
+drop index task_author_status_priority_idx on task;
+drop index task_executor_status_priority_idx on task;
+drop index task_status_priority_idx on task;
+drop index task_priority_idx on task;
+
+drop index task_author_idx on task;
+drop index task_author_status_idx on task;
+drop index task_author_priority_idx on task;
+drop index task_executor_idx on task;
+drop index task_executor_status_idx on task;
+drop index task_executor_priority_idx on task;
+drop index task_status_idx on task;
@@ -0,0 +1,12 @@
+-- Событие хранит статус и приоритет задачи наравне с автором и исполнителем, поэтому изменения
+-- для GET /task/changes отбираются по фильтрам запроса в самой таблице событий.
+-- InnoDB дописывает id в конец вторичного индекса, (author_id) и (executor_id) отдают события пользователя по порядку id.
+alter table task_event
+    add column status   varchar(100) null,
+    add column priority varchar(100) null;
+
+create index task_event_author_idx
+    on task_event (author_id);
+
+create index task_event_executor_idx
+    on task_event (executor_id);
@@ -0,0 +1,76 @@
+package barinov.task.management.system.benchmark;
+
+import barinov.task.management.system.TaskManagementSystemApplication;
+import barinov.task.management.system.models.Person;
+import barinov.task.management.system.models.Priority;
+import barinov.task.management.system.models.Status;
+import barinov.task.management.system.models.Task;
+import barinov.task.management.system.repositories.PeopleRepository;
+import barinov.task.management.system.services.RegistrationService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Контекст приложения без веб-сервера для бенчмарков, которым нужна база.
+ * Использует ту же базу, что и тесты, автор бенчмарка удаляется вместе со своими задачами.
+ */
+class BenchmarkContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private final Person author;
+
+    BenchmarkContext() {
+        context = new SpringApplicationBuilder(TaskManagementSystemApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.properties.hibernate.generate_statistics=true",
+                        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn")
+                .run();
+
+        author = new Person();
+        author.setEmail("benchmark" + System.nanoTime() + "@gmail.com");
+        author.setPassword("password");
+
+        getBean(RegistrationService.class).register(author);
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    Person getAuthor() {
+        return author;
+    }
+
+    Statistics getStatistics() {
+        return getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    static List<Task> createTasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+
+        for(int i = 0; i < count; i++) {
+            Task task = new Task();
+            task.setDescription("Задача бенчмарка " + i);
+            task.setStatus(Status.values()[i % Status.values().length]);
+            task.setPriority(Priority.values()[i % Priority.values().length]);
+
+            tasks.add(task);
+        }
+
+        return tasks;
+    }
+
+    @Override
+    public void close() {
+        getBean(PeopleRepository.class).delete(author);
+        context.close();
+    }
+}
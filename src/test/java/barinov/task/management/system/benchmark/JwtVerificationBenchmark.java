@@ -0,0 +1,103 @@
+package barinov.task.management.system.benchmark;
+
+import barinov.task.management.system.models.Person;
+import barinov.task.management.system.security.CredentialsChangeRegistry;
+import barinov.task.management.system.security.JWTUtil;
+import barinov.task.management.system.security.PersonDetails;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка токена в JWTFilter: кэш проверенных токенов JWTUtil против прежнего пути,
+ * который на каждый запрос собирал верификатор, проверял подпись и разбирал claims.
+ * Запросы идут с многих потоков по набору токенов разных пользователей.
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=JwtVerification
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "MySecretToken";
+
+    @Param({"100", "10000"})
+    private int users;
+
+    private CredentialsChangeRegistry credentialsChangeRegistry;
+
+    private JWTUtil jwtUtil;
+
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        credentialsChangeRegistry = new CredentialsChangeRegistry();
+        jwtUtil = new JWTUtil(SECRET, 60, 10000, false, credentialsChangeRegistry, new SimpleMeterRegistry());
+        tokens = new String[users];
+
+        for(int i = 0; i < users; i++) {
+            Person person = new Person();
+            person.setId(i + 1);
+            person.setEmail("benchmark" + i + "@gmail.com");
+
+            tokens[i] = jwtUtil.generateToken(person);
+        }
+    }
+
+    @Benchmark
+    public PersonDetails cachedVerification() {
+        return jwtUtil.validateTokenAndRetrievePersonDetails(nextToken());
+    }
+
+    // Та же работа, что и validateTokenAndRetrievePersonDetails, но без кэша
+    @Benchmark
+    public PersonDetails uncachedVerification() {
+        DecodedJWT jwt = JWT.require(Algorithm.HMAC256(SECRET))
+                .withSubject("User details")
+                .withIssuer("Barinov.task.management.system")
+                .build()
+                .verify(nextToken());
+
+        Claim id = jwt.getClaim("id");
+        Claim credentialsVersion = jwt.getClaim("cv");
+
+        if(id.isMissing() || id.isNull() || credentialsVersion.isMissing())
+            return null;
+
+        if(credentialsChangeRegistry.isRevoked(id.asInt(), credentialsVersion.asInt()))
+            throw new JWTVerificationException("Токен отозван");
+
+        Person person = new Person();
+        person.setId(id.asInt());
+        person.setEmail(jwt.getClaim("email").asString());
+
+        return new PersonDetails(person);
+    }
+
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(tokens.length)];
+    }
+}
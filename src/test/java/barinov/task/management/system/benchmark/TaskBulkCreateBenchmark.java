@@ -0,0 +1,85 @@
+package barinov.task.management.system.benchmark;
+
+import barinov.task.management.system.models.Task;
+import barinov.task.management.system.services.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание пачки задач одним вызовом saveTasksAndGetIds (POST /task/bulk) против
+ * отдельного saveTaskAndGetId на каждую задачу, как при последовательных POST /task.
+ * Результат - время на всю пачку, задачи в секунду получаются делением taskCount на него.
+ * Нужна локальная база из application.properties.
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=TaskBulkCreate
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TaskBulkCreateBenchmark {
+
+    @Param({"100", "1000"})
+    private int taskCount;
+
+    private BenchmarkContext context;
+
+    private TaskService taskService;
+
+    private List<Task> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        taskService = context.getBean(TaskService.class);
+    }
+
+    // Сохранённые задачи получают id, поэтому каждому вызову нужны новые
+    @Setup(Level.Invocation)
+    public void createTasks() {
+        tasks = BenchmarkContext.createTasks(taskCount);
+    }
+
+    // Таблица не растёт от итерации к итерации
+    @TearDown(Level.Iteration)
+    public void deleteTasks() {
+        context.getBean(JdbcTemplate.class).update("delete from task where author_id = ?", context.getAuthor().getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Integer> bulkInsert() {
+        return taskService.saveTasksAndGetIds(tasks, context.getAuthor());
+    }
+
+    @Benchmark
+    public List<Integer> singleInserts() {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+
+        for(Task task : tasks)
+            ids.add(taskService.saveTaskAndGetId(task, context.getAuthor()));
+
+        return ids;
+    }
+}
@@ -0,0 +1,96 @@
+package barinov.task.management.system.benchmark;
+
+import barinov.task.management.system.services.TaskService;
+import barinov.task.management.system.util.TaskField;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Список задач автора через полный путь getTasksByFilters и через проекцию getTaskFieldsByFilters.
+ * Время измеряет JMH, число SQL-запросов, загруженных сущностей и байтов JSON на одну страницу
+ * выводится в начале каждого прогона. Нужна локальная база из application.properties.
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=TaskFields
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskFieldsBenchmark {
+
+    private static final int TASK_COUNT = 10000;
+
+    @Param({"20", "1000"})
+    private int pageSize;
+
+    @Param({"id,status", "id,description,status,priority,authorId,executorId"})
+    private String fields;
+
+    private BenchmarkContext context;
+
+    private TaskService taskService;
+
+    private int authorId;
+
+    private Pageable pageable;
+
+    private Set<TaskField> taskFields;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new BenchmarkContext();
+        taskService = context.getBean(TaskService.class);
+        authorId = context.getAuthor().getId();
+        pageable = PageRequest.of(0, pageSize);
+        taskFields = TaskField.parse(fields);
+
+        taskService.saveTasksAndGetIds(BenchmarkContext.createTasks(TASK_COUNT), context.getAuthor());
+
+        printPageCost("getTasksByFilters", this::fullListing);
+        printPageCost("getTaskFieldsByFilters", this::fieldsListing);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object fullListing() {
+        return taskService.getTasksByFilters(null, authorId, null, null, pageable, false);
+    }
+
+    @Benchmark
+    public Object fieldsListing() {
+        return taskService.getTaskFieldsByFilters(null, authorId, null, null, pageable, taskFields);
+    }
+
+    private void printPageCost(String name, Supplier<Object> listing) throws Exception {
+        Statistics statistics = context.getStatistics();
+        statistics.clear();
+
+        byte[] json = context.getBean(ObjectMapper.class).writeValueAsBytes(listing.get());
+
+        System.out.printf("%s: statements=%d, entities=%d, bytes=%d%n", name,
+                statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(), json.length);
+    }
+}
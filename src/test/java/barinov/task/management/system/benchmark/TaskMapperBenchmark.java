@@ -0,0 +1,119 @@
+package barinov.task.management.system.benchmark;
+
+import barinov.task.management.system.config.ModelMapperConfig;
+import barinov.task.management.system.dto.ShowTaskDTO;
+import barinov.task.management.system.models.Comment;
+import barinov.task.management.system.models.Person;
+import barinov.task.management.system.models.Priority;
+import barinov.task.management.system.models.Status;
+import barinov.task.management.system.models.Task;
+import barinov.task.management.system.util.ConverterCommentAndCommentDTOs;
+import barinov.task.management.system.util.ConverterTaskAndTaskDTOs;
+import barinov.task.management.system.util.StageMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг страницы задач в ShowTaskDTO ручным маппером и ModelMapper (mapper.model-mapper.enabled).
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=TaskMapper
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskMapperBenchmark {
+
+    @Param({"false", "true"})
+    private boolean modelMapperEnabled;
+
+    @Param({"5", "100", "1000"})
+    private int pageSize;
+
+    // Комментарии в ответ попадают только при просмотре одной задачи
+    @Param({"false", "true"})
+    private boolean withComments;
+
+    private ConverterTaskAndTaskDTOs converterTask;
+
+    private List<Task> page;
+
+    @Setup
+    public void setUp() {
+        ModelMapper modelMapper = new ModelMapperConfig().modelMapper();
+
+        ConverterCommentAndCommentDTOs converterComment = new ConverterCommentAndCommentDTOs(modelMapper);
+        ReflectionTestUtils.setField(converterComment, "modelMapperEnabled", modelMapperEnabled);
+
+        converterTask = new ConverterTaskAndTaskDTOs(modelMapper, null, null, converterComment,
+                new StageMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(converterTask, "modelMapperEnabled", modelMapperEnabled);
+
+        page = new ArrayList<>(pageSize);
+
+        for(int i = 0; i < pageSize; i++)
+            page.add(createTask(i));
+    }
+
+    @Benchmark
+    public List<ShowTaskDTO> convertPage() {
+        List<ShowTaskDTO> showTaskDTOs = new ArrayList<>(page.size());
+
+        for(Task task : page)
+            showTaskDTOs.add(converterTask.convertToShowTaskDTO(task, withComments));
+
+        return showTaskDTOs;
+    }
+
+    private static Task createTask(int i) {
+        Person author = new Person();
+        author.setId(1);
+        author.setEmail("author@gmail.com");
+
+        Person executor = new Person();
+        executor.setId(2);
+        executor.setEmail("executor@gmail.com");
+
+        Task task = new Task();
+        task.setId(i + 1);
+        task.setDescription("Описание задачи " + i);
+        task.setStatus(Status.values()[i % Status.values().length]);
+        task.setPriority(Priority.values()[i % Priority.values().length]);
+        task.setAuthor(author);
+        task.setExecutor(executor);
+        task.setVersion(0);
+
+        List<Comment> comments = new ArrayList<>();
+
+        for(int j = 0; j < 3; j++) {
+            Comment comment = new Comment();
+            comment.setId(i * 3 + j + 1);
+            comment.setText("Комментарий " + j);
+            comment.setTask(task);
+
+            comments.add(comment);
+        }
+
+        task.setComments(comments);
+        task.setCommentCount(comments.size());
+
+        return task;
+    }
+}
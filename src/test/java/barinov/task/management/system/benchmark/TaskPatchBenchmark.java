@@ -0,0 +1,77 @@
+package barinov.task.management.system.benchmark;
+
+import barinov.task.management.system.dto.TaskDTO;
+import barinov.task.management.system.util.TaskPatchApplier;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Применение JSON Patch к TaskDTO: TaskPatchApplier, который пишет add, replace и remove прямо в поля,
+ * против прежнего пути через JsonNode, JsonPatch.apply и treeToValue.
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=TaskPatch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskPatchBenchmark {
+
+    @Param({
+            "[{\"op\": \"replace\", \"path\": \"/status\", \"value\": \"PROGRESS\"}]",
+            "[{\"op\": \"replace\", \"path\": \"/description\", \"value\": \"Новое описание\"}, " +
+                    "{\"op\": \"replace\", \"path\": \"/priority\", \"value\": \"HIGH\"}, " +
+                    "{\"op\": \"remove\", \"path\": \"/executorId\"}]"
+    })
+    private String patch;
+
+    private ObjectMapper objectMapper;
+
+    private TaskPatchApplier taskPatchApplier;
+
+    private JsonPatch jsonPatch;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        taskPatchApplier = new TaskPatchApplier(objectMapper);
+        jsonPatch = objectMapper.readValue(patch, JsonPatch.class);
+    }
+
+    @Benchmark
+    public TaskDTO directPatch() {
+        return taskPatchApplier.apply(jsonPatch, createTaskDTO());
+    }
+
+    @Benchmark
+    public TaskDTO treePatch() throws Exception {
+        JsonNode patched = jsonPatch.apply(objectMapper.convertValue(createTaskDTO(), JsonNode.class));
+
+        return objectMapper.treeToValue(patched, TaskDTO.class);
+    }
+
+    private static TaskDTO createTaskDTO() {
+        TaskDTO taskDTO = new TaskDTO();
+        taskDTO.setDescription("Описание задачи");
+        taskDTO.setStatus("WAITING");
+        taskDTO.setPriority("LOW");
+        taskDTO.setExecutorId(2);
+
+        return taskDTO;
+    }
+}
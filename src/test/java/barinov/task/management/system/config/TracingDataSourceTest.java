@@ -0,0 +1,62 @@
+package barinov.task.management.system.config;
+
+import barinov.task.management.system.util.RequestTrace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TracingDataSourceTest {
+
+    @AfterEach
+    public void endTrace() {
+        RequestTrace.end();
+    }
+
+    @Test
+    public void executedStatementsAreTimedTest() throws Exception {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeBatch()).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return new int[]{1, 1};
+        });
+
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(statement);
+
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        RequestTrace trace = RequestTrace.begin("POST /task/bulk");
+
+        try (Connection traced = new TracingDataSource(dataSource).getConnection()) {
+            PreparedStatement insert = traced.prepareStatement("insert into task (description) values (?)", 1);
+            insert.setString(1, "Задача");
+            insert.addBatch();
+            insert.executeBatch();
+
+            assertEquals(insert, insert);
+            assertFalse(insert.equals(statement));
+        }
+
+        trace.finish();
+
+        String serverTiming = trace.toServerTiming();
+
+        // подготовка и addBatch не считаются, выполнение пакета - один запрос со своим временем
+        assertTrue(serverTiming.contains("db;dur="));
+        assertTrue(serverTiming.contains("1 statements"));
+        assertFalse(serverTiming.contains("db;dur=0.00"));
+        assertTrue(trace.toTree().contains("sql: insert into task (description) values (?) ("));
+    }
+}
@@ -0,0 +1,86 @@
+package barinov.task.management.system.controllers;
+
+import barinov.task.management.system.models.Person;
+import barinov.task.management.system.repositories.PeopleRepository;
+import barinov.task.management.system.security.PersonDetails;
+import barinov.task.management.system.services.RegistrationService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"tracing.server-timing.enabled=true", "tracing.slow-request-threshold=0"})
+@ExtendWith({SpringExtension.class, OutputCaptureExtension.class})
+@AutoConfigureMockMvc
+public class ServerTimingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static PersonDetails personDetails;
+
+    @BeforeAll
+    public static void createPersonDetails(@Autowired RegistrationService registrationService) {
+        Person person = new Person();
+
+        person.setEmail("testServerTiming@gmail.com");
+        person.setPassword("password");
+
+        registrationService.register(person);
+
+        personDetails = new PersonDetails(person);
+    }
+
+    @AfterAll
+    public static void deletePersonDetails(@Autowired PeopleRepository peopleRepository) {
+        peopleRepository.delete(personDetails.getPerson());
+    }
+
+    @Test
+    @DirtiesContext
+    public void serverTimingHeaderTest() throws Exception {
+        mockMvc.perform(get("/task")
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("total;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("serialization;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("statements\"")));
+    }
+
+    @Test
+    @DirtiesContext
+    public void slowRequestLogTest(CapturedOutput output) throws Exception {
+        mockMvc.perform(get("/task")
+                        .with(user(personDetails)))
+                .andExpect(status().isOk());
+
+        // при нулевом пороге каждый запрос пишется в лог с деревом этапов и SQL-запросами
+        assertTrue(output.getOut().contains("Медленный запрос"));
+        assertTrue(output.getOut().contains("GET /task"));
+        assertTrue(output.getOut().contains("sql: "));
+    }
+
+    @Test
+    @DirtiesContext
+    public void streamingEndpointIsNotTracedTest() throws Exception {
+        mockMvc.perform(get("/task/export")
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Server-Timing"));
+    }
+}
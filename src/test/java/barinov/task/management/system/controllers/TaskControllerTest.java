@@ -1,5 +1,6 @@
 package barinov.task.management.system.controllers;
 
+import barinov.task.management.system.dto.BulkTaskUpdateDTO;
 import barinov.task.management.system.dto.CommentDTO;
 import barinov.task.management.system.dto.TaskDTO;
 import barinov.task.management.system.models.Person;
@@ -8,6 +9,7 @@ import barinov.task.management.system.models.Status;
 import barinov.task.management.system.repositories.PeopleRepository;
 import barinov.task.management.system.security.PersonDetails;
 import barinov.task.management.system.services.RegistrationService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -15,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
@@ -23,12 +26,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = {"task.events.safety-lag=0", "task.stats.snapshot-max-age=0", "task.bulk.max-size=2"})
 @ExtendWith(SpringExtension.class)
 @AutoConfigureMockMvc
 public class TaskControllerTest {
@@ -101,6 +112,88 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$.description").value("Изменение"));
     }
 
+    @Test
+    @DirtiesContext
+    @WithMockUser(username = "testTaskController2@gmail.com")
+    public void editTaskStatusConflictTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task 1", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        MvcResult mvcResult = mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        int taskId = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskId")
+                .asInt();
+
+        mockMvc.perform(patch("/task/{id}", taskId)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{ \"op\": \"replace\", \"path\": \"/status\", \"value\": \"COMPLETED\" }]"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(patch("/task/{id}", taskId)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{ \"op\": \"replace\", \"path\": \"/status\", \"value\": \"PROGRESS\" }]"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/task/{id}", taskId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(Status.PROGRESS.toString()));
+    }
+
+    @Test
+    @DirtiesContext
+    public void editTaskExecutorAndPriorityTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task 1", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        MvcResult mvcResult = mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        int taskId = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskId")
+                .asInt();
+
+        int executorId = personDetails.getPerson().getId();
+
+        mockMvc.perform(patch("/task/{id}", taskId)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{ \"op\": \"replace\", \"path\": \"/executorId\", \"value\": " + executorId + " }," +
+                                " { \"op\": \"replace\", \"path\": \"/priority\", \"value\": \"HIGH\" }]"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/task/{id}", taskId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.executorId").value(executorId))
+                .andExpect(jsonPath("$.priority").value(Priority.HIGH.toString()))
+                .andExpect(jsonPath("$.description").value("Test task 1"));
+
+        mockMvc.perform(patch("/task/{id}", taskId)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{ \"op\": \"remove\", \"path\": \"/executorId\" }]"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/task/{id}", taskId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.executorId").value(0));
+
+        mockMvc.perform(patch("/task/{id}", taskId)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{ \"op\": \"replace\", \"path\": \"/status\", \"value\": \"UNKNOWN\" }]"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DirtiesContext
     @WithMockUser(username = "testTaskController2@gmail.com")
@@ -148,6 +241,66 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$.id").value(taskId));
     }
 
+    @Test
+    @DirtiesContext
+    @WithMockUser(username = "testTaskController2@gmail.com")
+    public void showTaskNotModifiedTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task 1", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        MvcResult mvcResult = mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.taskId").exists())
+                .andReturn();
+
+        int taskId = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskId")
+                .asInt();
+
+        String eTag = mockMvc.perform(get("/task/{id}", taskId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/task/{id}", taskId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/task/{id}?include=comments", taskId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/task/{id}?fields=id,status", taskId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+
+        // If-Match сравнивает строго, слабый ETag той же версии не подходит
+        mockMvc.perform(patch("/task/status/{id}", taskId)
+                        .with(user(personDetails))
+                        .header(HttpHeaders.IF_MATCH, "W/" + eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(Status.PROGRESS.toString()))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch("/task/status/{id}", taskId)
+                        .with(user(personDetails))
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(Status.PROGRESS.toString()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(patch("/task/status/{id}", taskId)
+                        .with(user(personDetails))
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(Status.COMPLETED.toString()))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DirtiesContext
     public void deleteTaskTest() throws Exception {
@@ -221,6 +374,35 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$.status").value(Status.PROGRESS.toString()));
     }
 
+    @Test
+    @DirtiesContext
+    public void changeStatusConflictTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task 1", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        MvcResult mvcResult = mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        int taskId = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskId")
+                .asInt();
+
+        mockMvc.perform(patch("/task/status/{id}", taskId)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(Status.COMPLETED.toString()))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(patch("/task/status/{id}", Integer.MAX_VALUE)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(Status.PROGRESS.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DirtiesContext
     @WithMockUser(username = "testTaskController2@gmail.com")
@@ -272,11 +454,56 @@ public class TaskControllerTest {
                         .content(objectMapper.writeValueAsString(commentDTO)))
                 .andExpect(status().isNoContent());
 
-        mockMvc.perform(get("/task/{id}", taskId))
+        mockMvc.perform(get("/task/{id}?include=comments", taskId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.commentCount").value(1))
+                .andExpect(jsonPath("$.comments[:1].text").value("Комментарий"));
+
+        mockMvc.perform(get("/task/{id}/comments", taskId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.comments[:1].text").value("Комментарий"));
     }
 
+    @Test
+    @DirtiesContext
+    public void addCommentsTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task 1", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        MvcResult mvcResult = mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        int taskId = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskId")
+                .asInt();
+
+        String comments = "{ \"comments\": [{ \"text\": \"Первый\" }, { \"text\": \"Второй\" }] }";
+
+        mockMvc.perform(post("/task/{id}/comments", taskId)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(comments))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/task/{id}/comments", taskId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments.length()").value(2))
+                .andExpect(jsonPath("$.comments[1].text").value("Второй"));
+
+        mockMvc.perform(get("/task/{id}", taskId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.commentCount").value(2));
+
+        mockMvc.perform(post("/task/{id}/comments", Integer.MAX_VALUE)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(comments))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DirtiesContext
     @WithMockUser(username = "testTaskController2@gmail.com")
@@ -297,6 +524,420 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$[:1].id").exists());
     }
 
+    @Test
+    @DirtiesContext
+    @WithMockUser(username = "testTaskController2@gmail.com")
+    public void getTaskByFiltersAfterTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task 1", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        for(int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/task")
+                            .with(user(personDetails))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(taskDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        MvcResult mvcResult = mockMvc.perform(get("/task/cursor?authorId={authorId}&size=1",
+                        personDetails.getPerson().getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[:1].id").exists())
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn();
+
+        String nextCursor = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("nextCursor")
+                .asText();
+
+        mockMvc.perform(get("/task/cursor?authorId={authorId}&size=1&after={after}",
+                        personDetails.getPerson().getId(), nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[:1].id").exists());
+
+        mockMvc.perform(get("/task/cursor?after={after}", "incorrect"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/task/cursor?size=0"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/task/cursor?size=-1"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/task/cursor?size=1000000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DirtiesContext
+    public void getTaskByFiltersAfterSortedByPriorityTest() throws Exception {
+        for(Priority priority : List.of(Priority.HIGH, Priority.LOW, Priority.MEDDLE)) {
+            TaskDTO taskDTO = new TaskDTO("Test task priority", Status.WAITING.toString(), priority.toString(), 0);
+
+            mockMvc.perform(post("/task")
+                            .with(user(personDetails))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(taskDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        MvcResult mvcResult = mockMvc.perform(get("/task/cursor?authorId={authorId}&sort=priority&size=1000",
+                        personDetails.getPerson().getId())
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // приоритеты идут в порядке LOW, MEDDLE, HIGH, а не по алфавиту
+        int previous = -1;
+
+        for(JsonNode task : objectMapper.readTree(mvcResult.getResponse().getContentAsString()).get("tasks")) {
+            int rank = Priority.valueOf(task.get("priority").asText()).ordinal();
+
+            assertTrue(rank >= previous);
+            previous = rank;
+        }
+
+        assertEquals(Priority.HIGH.ordinal(), previous);
+    }
+
+    @Test
+    @DirtiesContext
+    @WithMockUser(username = "testTaskController2@gmail.com")
+    public void exportTaskByFiltersTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task 1", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated());
+
+        String content = mockMvc.perform(get("/task/export?authorId={authorId}", personDetails.getPerson().getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        for(String line : content.split("\n"))
+            assertEquals(personDetails.getPerson().getId(), objectMapper.readTree(line).get("authorId").asInt());
+    }
+
+    @Test
+    @DirtiesContext
+    @WithMockUser(username = "testTaskController2@gmail.com")
+    public void getTaskFieldsByFiltersTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task 1", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/task?authorId={authorId}&fields=id,status", personDetails.getPerson().getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[:1].id").exists())
+                .andExpect(jsonPath("$[:1].status").value(Status.WAITING.toString()))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+
+        mockMvc.perform(get("/task?fields=id,password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DirtiesContext
+    @WithMockUser(username = "testTaskController2@gmail.com")
+    public void searchTasksTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Починить поисковый индекс", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        MvcResult mvcResult = mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        int taskId = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskId")
+                .asInt();
+
+        mockMvc.perform(get("/task/search?q={q}&authorId={authorId}", "поисковый", personDetails.getPerson().getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(taskId));
+    }
+
+    @Test
+    @DirtiesContext
+    public void getTaskStatisticsTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task stats", Status.PROGRESS.toString(), Priority.HIGH.toString(), 0);
+
+        mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/task/stats")
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byAuthor['" + personDetails.getPerson().getId() + "']").exists())
+                .andExpect(jsonPath("$.byStatus.PROGRESS").exists())
+                .andExpect(jsonPath("$.byPriority.HIGH").exists())
+                .andExpect(jsonPath("$.byExecutorStatusPriority['0'].PROGRESS.HIGH").exists());
+    }
+
+    @Test
+    @DirtiesContext
+    public void createTasksTest() throws Exception {
+        List<TaskDTO> taskDTOs = List.of(
+                new TaskDTO("Test bulk task 1", Status.WAITING.toString(), Priority.LOW.toString(), 0),
+                new TaskDTO("Test bulk task 2", Status.PROGRESS.toString(), Priority.HIGH.toString(), 0));
+
+        MvcResult mvcResult = mockMvc.perform(post("/task/bulk")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTOs)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.taskIds.length()").value(2))
+                .andReturn();
+
+        int secondTaskId = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskIds")
+                .get(1)
+                .asInt();
+
+        mockMvc.perform(get("/task/{id}", secondTaskId)
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Test bulk task 2"));
+
+        List<TaskDTO> incorrectTaskDTOs = List.of(
+                new TaskDTO("Test bulk task 3", Status.WAITING.toString(), Priority.LOW.toString(), 0),
+                new TaskDTO("Test bulk task 4", "UNKNOWN", Priority.LOW.toString(), 0));
+
+        mockMvc.perform(post("/task/bulk")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(incorrectTaskDTOs)))
+                .andExpect(status().isBadRequest());
+
+        List<TaskDTO> tooManyTaskDTOs = List.of(
+                new TaskDTO("Test bulk task 5", Status.WAITING.toString(), Priority.LOW.toString(), 0),
+                new TaskDTO("Test bulk task 6", Status.WAITING.toString(), Priority.LOW.toString(), 0),
+                new TaskDTO("Test bulk task 7", Status.WAITING.toString(), Priority.LOW.toString(), 0));
+
+        mockMvc.perform(post("/task/bulk")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tooManyTaskDTOs)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+    }
+
+    @Test
+    @DirtiesContext
+    public void changeStatusesTest() throws Exception {
+        TaskDTO taskDTO = new TaskDTO("Test task bulk status", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        MvcResult mvcResult = mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        int taskId = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskId")
+                .asInt();
+
+        mockMvc.perform(get("/task/{id}", taskId)
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(Status.WAITING.toString()));
+
+        BulkTaskUpdateDTO bulkTaskUpdateDTO = new BulkTaskUpdateDTO(List.of(taskId, Integer.MAX_VALUE), Status.PROGRESS.toString(), 0);
+
+        mockMvc.perform(patch("/task/bulk/status")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bulkTaskUpdateDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + taskId + "']").value("UPDATED"))
+                .andExpect(jsonPath("$['" + Integer.MAX_VALUE + "']").value("NOT_FOUND"));
+
+        mockMvc.perform(get("/task/{id}", taskId)
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(Status.PROGRESS.toString()));
+
+        TaskDTO highPriorityTaskDTO = new TaskDTO("Test task bulk status by filters", Status.WAITING.toString(), Priority.HIGH.toString(), 0);
+
+        int highPriorityTaskId = objectMapper.readTree(mockMvc.perform(post("/task")
+                                .with(user(personDetails))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(highPriorityTaskDTO)))
+                        .andExpect(status().isCreated())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString())
+                .get("taskId")
+                .asInt();
+
+        BulkTaskUpdateDTO bulkTaskUpdateByFiltersDTO = new BulkTaskUpdateDTO(null, Status.PROGRESS.toString(), 0);
+
+        mockMvc.perform(patch("/task/bulk/status?authorId={authorId}&priority={priority}",
+                                personDetails.getPerson().getId(), Priority.HIGH.toString())
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bulkTaskUpdateByFiltersDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + highPriorityTaskId + "']").value("UPDATED"))
+                .andExpect(jsonPath("$['" + taskId + "']").doesNotExist());
+    }
+
+    @Test
+    @DirtiesContext
+    public void getChangesTest() throws Exception {
+        long token = objectMapper.readTree(mockMvc.perform(get("/task/changes")
+                                .with(user(personDetails)))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString())
+                .get("token")
+                .asLong();
+
+        TaskDTO taskDTO = new TaskDTO("Test task changes", Status.WAITING.toString(), Priority.LOW.toString(), 0);
+
+        MvcResult mvcResult = mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        int taskId = objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskId")
+                .asInt();
+
+        String changes = mockMvc.perform(get("/task/changes?since={since}&authorId={authorId}", token, personDetails.getPerson().getId())
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated[0].id").value(taskId))
+                .andExpect(jsonPath("$.removed").isEmpty())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        token = objectMapper.readTree(changes).get("token").asLong();
+
+        mockMvc.perform(delete("/task/{id}", taskId)
+                        .with(user(personDetails)))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/task/changes?since={since}", token)
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").isEmpty())
+                .andExpect(jsonPath("$.removed[0]").value(taskId));
+    }
+
+    @Test
+    @DirtiesContext
+    public void getChangesByFiltersTest() throws Exception {
+        long token = objectMapper.readTree(mockMvc.perform(get("/task/changes")
+                                .with(user(personDetails)))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString())
+                .get("token")
+                .asLong();
+
+        int waitingTaskId = createTask(new TaskDTO("Test task changes 1", Status.WAITING.toString(), Priority.LOW.toString(), 0));
+        int progressTaskId = createTask(new TaskDTO("Test task changes 2", Status.PROGRESS.toString(), Priority.LOW.toString(), 0));
+
+        // Задача в другом статусе под фильтр не подходила и в ответ не попадает
+        String changes = mockMvc.perform(get("/task/changes?since={since}&status=WAITING", token)
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated.length()").value(1))
+                .andExpect(jsonPath("$.updated[0].id").value(waitingTaskId))
+                .andExpect(jsonPath("$.removed").isEmpty())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        token = objectMapper.readTree(changes).get("token").asLong();
+
+        mockMvc.perform(patch("/task/{id}", waitingTaskId)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{ \"op\": \"replace\", \"path\": \"/status\", \"value\": \"PROGRESS\" }]"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(patch("/task/{id}", progressTaskId)
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{ \"op\": \"replace\", \"path\": \"/description\", \"value\": \"Изменение\" }]"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/task/changes?since={since}&status=WAITING", token)
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").isEmpty())
+                .andExpect(jsonPath("$.removed.length()").value(1))
+                .andExpect(jsonPath("$.removed[0]").value(waitingTaskId));
+    }
+
+    private int createTask(TaskDTO taskDTO) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(post("/task")
+                        .with(user(personDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        return objectMapper.readTree(mvcResult.getResponse().getContentAsString())
+                .get("taskId")
+                .asInt();
+    }
+
+    @Test
+    @DirtiesContext
+    public void subscribeToEventsTest() throws Exception {
+        mockMvc.perform(get("/task/events?authorId={authorId}", personDetails.getPerson().getId())
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    @DirtiesContext
+    public void prometheusMetricsTest() throws Exception {
+        mockMvc.perform(get("/task")
+                        .with(user(personDetails)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().is3xxRedirection());
+
+        mockMvc.perform(get("/actuator/prometheus")
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("task_stage_seconds_count{stage=\"serialization\"")));
+    }
+
+    @Test
+    @DirtiesContext
+    public void serverTimingDisabledByDefaultTest() throws Exception {
+        mockMvc.perform(get("/task")
+                        .with(user(personDetails)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Server-Timing"));
+    }
+
     @Test
     @DirtiesContext
     public void unauthorizedAccessTest() throws Exception {
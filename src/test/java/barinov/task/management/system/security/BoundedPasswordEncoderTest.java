@@ -0,0 +1,105 @@
+package barinov.task.management.system.security;
+
+import barinov.task.management.system.controllers.AuthController;
+import barinov.task.management.system.exceptions.PasswordHashingRejectedException;
+import barinov.task.management.system.repositories.PeopleRepository;
+import barinov.task.management.system.services.RegistrationService;
+import barinov.task.management.system.util.PersonDTOValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BoundedPasswordEncoderTest {
+
+    private final PasswordEncoder delegate = mock(PasswordEncoder.class);
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+    private Thread waitingCaller;
+
+    @BeforeEach
+    public void saturateEncoder() throws InterruptedException {
+        when(delegate.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+
+        passwordEncoder = new BoundedPasswordEncoder(delegate, 1, 1, new SimpleMeterRegistry());
+
+        // Единственное место ожидания занимает медленное хеширование
+        waitingCaller = new Thread(() -> passwordEncoder.encode("password"));
+        waitingCaller.start();
+
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    public void releaseEncoder() throws InterruptedException {
+        release.countDown();
+        waitingCaller.join();
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    public void rejectWhenWaitingCallersLimitReachedTest() {
+        long start = System.nanoTime();
+
+        assertThrows(PasswordHashingRejectedException.class, () -> passwordEncoder.encode("password"));
+
+        // запрос не ждёт освобождения пула
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void acceptAfterWaitingCallerFinishedTest() throws InterruptedException {
+        release.countDown();
+        waitingCaller.join();
+
+        assertEquals("hash", passwordEncoder.encode("password"));
+    }
+
+    @Test
+    public void registrationWhenHashingSaturatedTest() throws Exception {
+        RegistrationService registrationService = new RegistrationService(mock(PeopleRepository.class), passwordEncoder,
+                new CredentialsChangeRegistry());
+
+        AuthController authController = new AuthController(mock(PersonDTOValidator.class), registrationService,
+                mock(JWTUtil.class), new ModelMapper(), mock(AuthenticationManager.class));
+        ReflectionTestUtils.setField(authController, "retryAfterSeconds", 1);
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(authController).build();
+
+        mockMvc.perform(post("/auth/registration")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"email\": \"testHashing@gmail.com\", \"password\": \"password\" }"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+}
@@ -0,0 +1,52 @@
+package barinov.task.management.system.security;
+
+import barinov.task.management.system.models.Person;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JWTUtilTest {
+
+    private final CredentialsChangeRegistry credentialsChangeRegistry = new CredentialsChangeRegistry();
+
+    private final JWTUtil jwtUtil = new JWTUtil("secret", 60, 100, true, credentialsChangeRegistry, new SimpleMeterRegistry());
+
+    @Test
+    public void statelessTokenTest() {
+        String token = jwtUtil.generateToken(createPerson());
+
+        PersonDetails personDetails = jwtUtil.validateTokenAndRetrievePersonDetails(token);
+
+        assertEquals(1, personDetails.getPerson().getId());
+        assertEquals("testJWT@gmail.com", personDetails.getUsername());
+    }
+
+    @Test
+    public void tokenRevokedAfterPasswordChangeTest() {
+        Person person = createPerson();
+        String oldToken = jwtUtil.generateToken(person);
+
+        // токен уже проверен и лежит в кэше
+        jwtUtil.validateTokenAndRetrievePersonDetails(oldToken);
+
+        credentialsChangeRegistry.credentialsChanged(person.getId());
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateTokenAndRetrievePersonDetails(oldToken));
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateTokenAndRetrieveClaim(oldToken));
+
+        String newToken = jwtUtil.generateToken(person);
+
+        assertEquals(1, jwtUtil.validateTokenAndRetrievePersonDetails(newToken).getPerson().getId());
+    }
+
+    private static Person createPerson() {
+        Person person = new Person();
+        person.setId(1);
+        person.setEmail("testJWT@gmail.com");
+
+        return person;
+    }
+}
@@ -0,0 +1,229 @@
+package barinov.task.management.system.services;
+
+import barinov.task.management.system.controllers.TaskController;
+import barinov.task.management.system.exceptions.TaskNotFoundException;
+import barinov.task.management.system.util.ConverterCommentAndCommentDTOs;
+import barinov.task.management.system.util.ConverterTaskAndTaskDTOs;
+import barinov.task.management.system.util.GeneratorExceptionWithMessageTaskDTO;
+import barinov.task.management.system.util.TaskDTOValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CommentWriteQueueTest {
+
+    private final TaskService taskService = mock(TaskService.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Копии пачек: очередь переиспользует свои коллекции
+    private final List<Map<Integer, List<String>>> flushed = new CopyOnWriteArrayList<>();
+
+    private CommentWriteQueue queue;
+
+    @AfterEach
+    public void stopQueue() {
+        if(queue != null)
+            queue.stop();
+    }
+
+    @Test
+    public void flushOnBatchSizeTest() {
+        recordFlushes();
+        queue = createQueue(10, 3, TimeUnit.MINUTES.toMillis(1));
+
+        for(int i = 0; i < 3; i++)
+            assertTrue(queue.offer(1, "Комментарий " + i));
+
+        // linger в минуту не прошёл, пачку записал размер
+        verify(taskService, timeout(1000)).appendComments(anyMap());
+        assertEquals(List.of("Комментарий 0", "Комментарий 1", "Комментарий 2"), flushed.get(0).get(1));
+    }
+
+    @Test
+    public void flushOnLingerTest() {
+        recordFlushes();
+        queue = createQueue(10, 100, 50);
+
+        assertTrue(queue.offer(1, "Комментарий"));
+
+        verify(taskService, timeout(1000)).appendComments(anyMap());
+        assertEquals(List.of("Комментарий"), flushed.get(0).get(1));
+    }
+
+    @Test
+    public void rejectWhenQueueIsFullTest() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(taskService.appendComments(anyMap())).thenAnswer(invocation -> {
+            release.await();
+            return Set.of();
+        });
+
+        queue = createQueue(1, 1, 10);
+
+        assertTrue(queue.offer(1, "Комментарий 1"));
+        // поток записи занят первой пачкой, второй комментарий занимает всю очередь
+        verify(taskService, timeout(1000)).appendComments(anyMap());
+        assertTrue(queue.offer(1, "Комментарий 2"));
+
+        assertFalse(queue.offer(1, "Комментарий 3"));
+
+        release.countDown();
+        verify(taskService, timeout(1000).times(2)).appendComments(anyMap());
+    }
+
+    @Test
+    public void drainOnStopTest() {
+        recordFlushes();
+        queue = createQueue(100, 5, TimeUnit.MINUTES.toMillis(1));
+
+        for(int i = 0; i < 12; i++)
+            assertTrue(queue.offer(i % 2, "Комментарий " + i));
+
+        queue.stop();
+
+        int written = flushed.stream()
+                .flatMap(batch -> batch.values().stream())
+                .mapToInt(List::size)
+                .sum();
+
+        assertEquals(12, written);
+        assertFalse(queue.offer(1, "Комментарий после остановки"));
+    }
+
+    @Test
+    public void retryTransientFailureTest() {
+        when(taskService.appendComments(anyMap()))
+                .thenThrow(new CannotAcquireLockException("Deadlock"))
+                .thenReturn(Set.of());
+
+        queue = createQueue(10, 1, 10);
+
+        assertTrue(queue.offer(1, "Комментарий"));
+
+        verify(taskService, timeout(1000).times(2)).appendComments(anyMap());
+        assertEquals(0, meterRegistry.counter("comment.queue.dropped").count());
+    }
+
+    @Test
+    public void isolateFailedTaskTest() {
+        when(taskService.appendComments(anyMap())).thenAnswer(invocation -> {
+            Map<Integer, List<String>> textsByTask = invocation.getArgument(0);
+
+            if(textsByTask.get(2) != null && textsByTask.get(2).contains("Ошибочный комментарий"))
+                throw new DataIntegrityViolationException("Data too long");
+
+            flushed.add(copy(textsByTask));
+            return Set.of();
+        });
+
+        queue = createQueue(10, 3, TimeUnit.MINUTES.toMillis(1));
+
+        assertTrue(queue.offer(1, "Комментарий 1"));
+        assertTrue(queue.offer(2, "Комментарий 2"));
+        assertTrue(queue.offer(2, "Ошибочный комментарий"));
+
+        // вся пачка, задача 1, задача 2, два комментария задачи 2 по отдельности
+        verify(taskService, timeout(1000).times(5)).appendComments(any());
+
+        assertEquals(List.of(Map.of(1, List.of("Комментарий 1")), Map.of(2, List.of("Комментарий 2"))), flushed);
+        assertEquals(1, meterRegistry.counter("comment.queue.dropped").count());
+    }
+
+    @Test
+    public void addCommentWhenQueueIsFullTest() throws Exception {
+        CommentWriteQueue fullQueue = mock(CommentWriteQueue.class);
+        when(fullQueue.isEnabled()).thenReturn(true);
+        when(fullQueue.offer(anyInt(), anyString())).thenReturn(false);
+
+        MockMvc mockMvc = createControllerMockMvc(fullQueue);
+
+        mockMvc.perform(post("/task/comment/{taskId}", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"text\": \"Комментарий\" }"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    public void addCommentToMissingTaskTest() throws Exception {
+        CommentWriteQueue commentWriteQueue = mock(CommentWriteQueue.class);
+        when(commentWriteQueue.isEnabled()).thenReturn(true);
+        doThrow(new TaskNotFoundException()).when(taskService).checkTaskExists(1);
+
+        MockMvc mockMvc = createControllerMockMvc(commentWriteQueue);
+
+        mockMvc.perform(post("/task/comment/{taskId}", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"text\": \"Комментарий\" }"))
+                .andExpect(status().isBadRequest());
+
+        verify(commentWriteQueue, never()).offer(anyInt(), anyString());
+    }
+
+    private MockMvc createControllerMockMvc(CommentWriteQueue commentWriteQueue) {
+        TaskController taskController = new TaskController(taskService, mock(TaskDTOValidator.class), mock(ConverterTaskAndTaskDTOs.class),
+                mock(GeneratorExceptionWithMessageTaskDTO.class), new ConverterCommentAndCommentDTOs(new ModelMapper()),
+                new ObjectMapper(), commentWriteQueue, mock(TaskEventDispatcher.class));
+        ReflectionTestUtils.setField(taskController, "retryAfterSeconds", 1);
+
+        return MockMvcBuilders.standaloneSetup(taskController).build();
+    }
+
+    private CommentWriteQueue createQueue(int capacity, int batchSize, long linger) {
+        CommentWriteQueue commentWriteQueue = new CommentWriteQueue(taskService, true, capacity, batchSize, linger, 3, 1, meterRegistry);
+        commentWriteQueue.start();
+
+        return commentWriteQueue;
+    }
+
+    private void recordFlushes() {
+        when(taskService.appendComments(anyMap())).thenAnswer(invocation -> {
+            flushed.add(copy(invocation.getArgument(0)));
+            return Set.of();
+        });
+    }
+
+    private static Map<Integer, List<String>> copy(Map<Integer, List<String>> textsByTask) {
+        Map<Integer, List<String>> copy = new TreeMap<>();
+        textsByTask.forEach((taskId, texts) -> copy.put(taskId, new ArrayList<>(texts)));
+
+        return copy;
+    }
+}
@@ -0,0 +1,52 @@
+package barinov.task.management.system.services;
+
+import barinov.task.management.system.repositories.CommentRepository;
+import barinov.task.management.system.repositories.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class TaskSearchIndexTest {
+
+    private final TaskSearchIndex searchIndex = new TaskSearchIndex(mock(TaskRepository.class), mock(CommentRepository.class),
+            mock(PlatformTransactionManager.class));
+
+    @Test
+    public void searchRanksByRelevanceTest() {
+        searchIndex.indexTask(1, "Починить сборку");
+        searchIndex.indexTask(2, "Починить сервер и сборку сервера");
+        searchIndex.indexTask(3, "Обновить документацию");
+        searchIndex.indexTask(4, "Сервер");
+        searchIndex.indexComment(3, "Сервер падает");
+
+        // задача 2 содержит оба слова, 4 и 3 по одному, при равной оценке выше меньший id
+        assertEquals(List.of(2, 3, 4), searchIndex.search("сервер сервера", 10));
+        assertEquals(List.of(1, 2), searchIndex.search("починить", 10));
+    }
+
+    @Test
+    public void searchReturnsOnlyTopLimitTest() {
+        for(int id = 1; id <= 100; id++)
+            searchIndex.indexTask(id, id % 10 == 0 ? "отчёт отчёт" : "отчёт");
+
+        List<Integer> top = searchIndex.search("отчёт", 5);
+
+        assertEquals(List.of(10, 20, 30, 40, 50), top);
+        assertEquals(100, searchIndex.search("отчёт", 1000).size());
+        assertEquals(List.of(), searchIndex.search("отчёт", 0));
+    }
+
+    @Test
+    public void searchAfterRemoveTest() {
+        searchIndex.indexTask(1, "Задача");
+        searchIndex.indexTask(2, "Задача");
+        searchIndex.removeTask(1);
+
+        assertEquals(List.of(2), searchIndex.search("задача", 10));
+        assertEquals(List.of(), searchIndex.search("неизвестное", 10));
+    }
+}
@@ -0,0 +1,115 @@
+package barinov.task.management.system.services;
+
+import barinov.task.management.system.dto.ShowTaskDTO;
+import barinov.task.management.system.models.Comment;
+import barinov.task.management.system.models.Person;
+import barinov.task.management.system.models.Priority;
+import barinov.task.management.system.models.Status;
+import barinov.task.management.system.models.Task;
+import barinov.task.management.system.repositories.PeopleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ExtendWith(SpringExtension.class)
+public class TaskServiceTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static Person person;
+
+    @BeforeAll
+    public static void createPerson(@Autowired RegistrationService registrationService) {
+        person = new Person();
+
+        person.setEmail("testTaskService@gmail.com");
+        person.setPassword("password");
+
+        registrationService.register(person);
+    }
+
+    @AfterAll
+    public static void deletePerson(@Autowired PeopleRepository peopleRepository) {
+        peopleRepository.delete(person);
+    }
+
+    @Test
+    @DirtiesContext
+    public void getTasksByFiltersQueryCountTest() {
+        int pageSize = 5;
+
+        for(int i = 0; i < pageSize; i++) {
+            Task task = new Task();
+            task.setDescription("Test task " + i);
+            task.setStatus(Status.WAITING);
+            task.setPriority(Priority.LOW);
+
+            int taskId = taskService.saveTaskAndGetId(task, person);
+
+            for(int j = 0; j < 2; j++) {
+                Comment comment = new Comment();
+                comment.setText("Комментарий " + j);
+
+                taskService.addComment(taskId, comment);
+            }
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        int size = taskService.getTasksByFilters(null, null, Priority.LOW, Status.WAITING, PageRequest.of(0, pageSize), true).size();
+
+        assertEquals(pageSize, size);
+        // страница задач с авторами и исполнителями, count и одна пачка комментариев
+        assertTrue(statistics.getPrepareStatementCount() <= 3,
+                "Выполнено запросов: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DirtiesContext
+    public void searchTasksWithFiltersBeyondFirstBatchTest() {
+        // фильтрами проверяется по одному кандидату, подходящая задача не первая по релевантности
+        ReflectionTestUtils.setField(taskService, "searchBatchSize", 1);
+
+        for(int i = 0; i < 3; i++) {
+            Task task = new Task();
+            task.setDescription("Релевантная задача задача " + i);
+            task.setStatus(Status.WAITING);
+            task.setPriority(Priority.HIGH);
+
+            taskService.saveTaskAndGetId(task, person);
+        }
+
+        Task task = new Task();
+        task.setDescription("Задача с низким приоритетом");
+        task.setStatus(Status.WAITING);
+        task.setPriority(Priority.LOW);
+
+        int taskId = taskService.saveTaskAndGetId(task, person);
+
+        List<ShowTaskDTO> found = taskService.searchTasks("задача", null, person.getId(), Priority.LOW, null, 10, false);
+
+        assertEquals(1, found.size());
+        assertEquals(taskId, found.get(0).getId());
+    }
+}
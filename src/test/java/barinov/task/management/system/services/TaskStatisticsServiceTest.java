@@ -0,0 +1,71 @@
+package barinov.task.management.system.services;
+
+import barinov.task.management.system.dto.TaskStatsDTO;
+import barinov.task.management.system.models.Person;
+import barinov.task.management.system.models.Priority;
+import barinov.task.management.system.models.Status;
+import barinov.task.management.system.models.Task;
+import barinov.task.management.system.repositories.TaskRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class TaskStatisticsServiceTest {
+
+    @Test
+    public void marginalsAreDerivedFromCompositeCountersTest() {
+        TaskStatisticsService statisticsService = new TaskStatisticsService(mock(TaskRepository.class), 0);
+
+        statisticsService.taskAdded(key(1, 2, Status.WAITING, Priority.HIGH));
+        statisticsService.taskAdded(key(1, 2, Status.PROGRESS, Priority.HIGH));
+        statisticsService.taskAdded(key(3, null, Status.WAITING, Priority.LOW));
+
+        TaskStatisticsService.Key moved = key(1, 2, Status.WAITING, Priority.HIGH);
+        statisticsService.taskReplaced(moved, moved.withStatus(Status.PROGRESS));
+
+        TaskStatsDTO statistics = statisticsService.getStatistics();
+
+        assertEquals(Map.of("PROGRESS", Map.of("HIGH", 2L)), statistics.getByExecutorStatusPriority().get("2"));
+        assertEquals(Map.of("WAITING", Map.of("LOW", 1L)), statistics.getByExecutorStatusPriority().get("0"));
+        assertEquals(Map.of("PROGRESS", 2L, "WAITING", 1L), statistics.getByStatus());
+        assertEquals(Map.of("HIGH", 2L, "LOW", 1L), statistics.getByPriority());
+        assertEquals(Map.of("1", 2L, "3", 1L), statistics.getByAuthor());
+        assertEquals(Map.of("2", 2L, "0", 1L), statistics.getByExecutor());
+    }
+
+    @Test
+    public void snapshotIsReusedWhileCountersAreUnchangedTest() {
+        TaskStatisticsService statisticsService = new TaskStatisticsService(mock(TaskRepository.class), 60000);
+
+        statisticsService.taskAdded(key(1, null, Status.WAITING, Priority.LOW));
+        TaskStatsDTO first = statisticsService.getStatistics();
+
+        assertSame(first, statisticsService.getStatistics());
+
+        // Снимок моложе snapshot-max-age отдаётся и после изменения счётчиков
+        statisticsService.taskAdded(key(1, null, Status.WAITING, Priority.LOW));
+        assertSame(first, statisticsService.getStatistics());
+        assertEquals(1L, first.getByStatus().get("WAITING"));
+    }
+
+    private static TaskStatisticsService.Key key(int authorId, Integer executorId, Status status, Priority priority) {
+        Task task = new Task();
+        task.setAuthor(person(authorId));
+        task.setExecutor(executorId != null ? person(executorId) : null);
+        task.setStatus(status);
+        task.setPriority(priority);
+
+        return TaskStatisticsService.Key.of(task);
+    }
+
+    private static Person person(int id) {
+        Person person = new Person();
+        person.setId(id);
+
+        return person;
+    }
+}